@@ -10,6 +10,7 @@ package com.farao_community.farao.gridcapa_core_valid.api;
 
 import com.farao_community.farao.gridcapa_core_valid.api.exception.AbstractCoreValidException;
 import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInternalException;
+import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidBatchRequest;
 import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
@@ -61,7 +62,7 @@ public class JsonApiConverter {
     }
 
     private ResourceConverter createConverter() {
-        ResourceConverter converter = new ResourceConverter(objectMapper, CoreValidRequest.class);
+        ResourceConverter converter = new ResourceConverter(objectMapper, CoreValidRequest.class, CoreValidBatchRequest.class);
         converter.disableSerializationOption(SerializationFeature.INCLUDE_META);
         return converter;
     }
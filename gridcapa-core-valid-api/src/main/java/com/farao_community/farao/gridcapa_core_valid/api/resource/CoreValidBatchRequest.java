@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ */
+
+package com.farao_community.farao.gridcapa_core_valid.api.resource;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.jasminb.jsonapi.annotations.Id;
+import com.github.jasminb.jsonapi.annotations.Type;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.List;
+
+/**
+ * Request for several timestamps of a same business day, sharing the day files
+ * (CBCORA, GLSK, reference program and study points).
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Type("core-valid-batch-request")
+public class CoreValidBatchRequest {
+    @Id
+    private final String id;
+    private final List<CoreValidBatchTimestamp> timestamps;
+    private final CoreValidFileResource cbcora;
+    private final CoreValidFileResource glsk;
+    private final CoreValidFileResource refProg;
+    private final CoreValidFileResource studyPoints;
+    private final boolean launchedAutomatically;
+
+    @JsonCreator
+    public CoreValidBatchRequest(@JsonProperty("id") String id,
+                                 @JsonProperty("timestamps") List<CoreValidBatchTimestamp> timestamps,
+                                 @JsonProperty("cbcora") CoreValidFileResource cbcora,
+                                 @JsonProperty("glsk") CoreValidFileResource glsk,
+                                 @JsonProperty("refProg") CoreValidFileResource refProg,
+                                 @JsonProperty("studyPoints") CoreValidFileResource studyPoints,
+                                 @JsonProperty("launchedAutomatically") boolean launchedAutomatically) {
+        this.id = id;
+        this.timestamps = timestamps == null ? List.of() : List.copyOf(timestamps);
+        this.cbcora = cbcora;
+        this.glsk = glsk;
+        this.refProg = refProg;
+        this.studyPoints = studyPoints;
+        this.launchedAutomatically = launchedAutomatically;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<CoreValidBatchTimestamp> getTimestamps() {
+        return timestamps;
+    }
+
+    public CoreValidFileResource getCbcora() {
+        return cbcora;
+    }
+
+    public CoreValidFileResource getGlsk() {
+        return glsk;
+    }
+
+    public CoreValidFileResource getRefProg() {
+        return refProg;
+    }
+
+    public CoreValidFileResource getStudyPoints() {
+        return studyPoints;
+    }
+
+    public boolean getLaunchedAutomatically() {
+        return launchedAutomatically;
+    }
+
+    /**
+     * @return one request per timestamp of the batch, all of them pointing to the same day files.
+     */
+    public List<CoreValidRequest> toCoreValidRequests() {
+        return timestamps.stream()
+                .map(batchTimestamp -> new CoreValidRequest(batchTimestamp.getId(), batchTimestamp.getCurrentRunId(), batchTimestamp.getTimestamp(),
+                        batchTimestamp.getCgm(), cbcora, glsk, refProg, studyPoints, launchedAutomatically))
+                .toList();
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ */
+
+package com.farao_community.farao.gridcapa_core_valid.api.resource;
+
+import com.farao_community.farao.gridcapa_core_valid.api.OffsetDateTimeDeserializer;
+import com.farao_community.farao.gridcapa_core_valid.api.OffsetDateTimeSerializer;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * Timestamp of a {@link CoreValidBatchRequest}, with the task it belongs to and its own CGM.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+public class CoreValidBatchTimestamp {
+    private final String id;
+    private final String currentRunId;
+    @JsonSerialize(using = OffsetDateTimeSerializer.class)
+    @JsonDeserialize(using = OffsetDateTimeDeserializer.class)
+    private final OffsetDateTime timestamp;
+    private final CoreValidFileResource cgm;
+
+    @JsonCreator
+    public CoreValidBatchTimestamp(@JsonProperty("id") String id,
+                                   @JsonProperty("currentRunId") String currentRunId,
+                                   @JsonProperty("timestamp") OffsetDateTime timestamp,
+                                   @JsonProperty("cgm") CoreValidFileResource cgm) {
+        this.id = Objects.requireNonNull(id);
+        this.currentRunId = currentRunId;
+        this.timestamp = Objects.requireNonNull(timestamp);
+        this.cgm = Objects.requireNonNull(cgm);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCurrentRunId() {
+        return currentRunId;
+    }
+
+    public OffsetDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public CoreValidFileResource getCgm() {
+        return cgm;
+    }
+
+    @Override
+    public String toString() {
+        return ToStringBuilder.reflectionToString(this);
+    }
+}
@@ -39,6 +39,10 @@ public class CoreValidRequest {
     private final CoreValidFileResource refProg;
     private final CoreValidFileResource studyPoints;
     private final boolean launchedAutomatically;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    @JsonSerialize(using = OffsetDateTimeSerializer.class)
+    @JsonDeserialize(using = OffsetDateTimeDeserializer.class)
+    private final OffsetDateTime deadline;
 
     @JsonCreator
     public CoreValidRequest(@JsonProperty("id") String id,
@@ -49,7 +53,8 @@ public class CoreValidRequest {
                             @JsonProperty("glsk") CoreValidFileResource glsk,
                             @JsonProperty("refProg") CoreValidFileResource refProg,
                             @JsonProperty("studyPoints") CoreValidFileResource studyPoints,
-                            @JsonProperty("launchedAutomatically") boolean launchedAutomatically) {
+                            @JsonProperty("launchedAutomatically") boolean launchedAutomatically,
+                            @JsonProperty("deadline") OffsetDateTime deadline) {
         this.id = id;
         this.currentRunId = currentRunId;
         this.timestamp = timestamp;
@@ -59,6 +64,19 @@ public class CoreValidRequest {
         this.refProg = refProg;
         this.studyPoints = studyPoints;
         this.launchedAutomatically = launchedAutomatically;
+        this.deadline = deadline;
+    }
+
+    public CoreValidRequest(String id,
+                            String currentRunId,
+                            OffsetDateTime timestamp,
+                            CoreValidFileResource cgm,
+                            CoreValidFileResource cbcora,
+                            CoreValidFileResource glsk,
+                            CoreValidFileResource refProg,
+                            CoreValidFileResource studyPoints,
+                            boolean launchedAutomatically) {
+        this(id, currentRunId, timestamp, cgm, cbcora, glsk, refProg, studyPoints, launchedAutomatically, null);
     }
 
     public CoreValidRequest(String id,
@@ -108,6 +126,13 @@ public class CoreValidRequest {
         return launchedAutomatically;
     }
 
+    /**
+     * Time before which the study points must be computed, null when the request has no deadline.
+     */
+    public OffsetDateTime getDeadline() {
+        return deadline;
+    }
+
     @Override
     public String toString() {
         return ToStringBuilder.reflectionToString(this);
@@ -10,6 +10,7 @@ package com.farao_community.farao.gridcapa_core_valid.api;
 
 import com.farao_community.farao.gridcapa_core_valid.api.exception.AbstractCoreValidException;
 import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInternalException;
+import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidBatchRequest;
 import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
 import org.junit.jupiter.api.Test;
 
@@ -36,6 +37,20 @@ class JsonApiConverterTest {
         assertEquals("https://cbcora/file/url", coreValidRequest.getCbcora().getUrl());
         assertEquals("glsk.txt", coreValidRequest.getGlsk().getFilename());
         assertEquals("https://glsk/file/url", coreValidRequest.getGlsk().getUrl());
+        assertEquals("2021-10-02T21:00Z", coreValidRequest.getDeadline().toString());
+    }
+
+    @Test
+    void checkCoreValidBatchInputsJsonConversion() throws URISyntaxException, IOException {
+        JsonApiConverter jsonApiConverter = new JsonApiConverter();
+        String inputMessage = Files.readString(Paths.get(getClass().getResource("/validBatchRequest.json").toURI()));
+        CoreValidBatchRequest coreValidBatchRequest = jsonApiConverter.fromJsonMessage(inputMessage.getBytes(), CoreValidBatchRequest.class);
+        assertEquals("batchId", coreValidBatchRequest.getId());
+        assertEquals(2, coreValidBatchRequest.getTimestamps().size());
+        assertEquals("2021-10-02T23:30Z", coreValidBatchRequest.getTimestamps().get(1).getTimestamp().toString());
+        assertEquals("https://cgm/0130/file/url", coreValidBatchRequest.getTimestamps().get(1).getCgm().getUrl());
+        assertEquals("https://glsk/file/url", coreValidBatchRequest.getGlsk().getUrl());
+        assertTrue(coreValidBatchRequest.getLaunchedAutomatically());
     }
 
     @Test
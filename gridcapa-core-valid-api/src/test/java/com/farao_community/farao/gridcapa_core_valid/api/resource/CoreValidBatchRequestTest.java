@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ */
+
+package com.farao_community.farao.gridcapa_core_valid.api.resource;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class CoreValidBatchRequestTest {
+
+    @Test
+    void checkBatchRequestIsSplitIntoHourlyRequests() {
+        CoreValidFileResource cbcora = new CoreValidFileResource("cbcora.txt", "http://path/to/cbcora/file");
+        CoreValidFileResource glsk = new CoreValidFileResource("glsk.txt", "http://path/to/glsk/file");
+        CoreValidFileResource refProg = new CoreValidFileResource("refprog.txt", "http://path/to/refProg/file");
+        CoreValidFileResource studyPoints = new CoreValidFileResource("study-points.txt", "http://path/to/studyPoints/file");
+        CoreValidBatchTimestamp firstHour = new CoreValidBatchTimestamp("id0", "runId0", OffsetDateTime.parse("2021-10-02T22:30Z"), new CoreValidFileResource("network0.txt", "http://path/to/cgm0/file"));
+        CoreValidBatchTimestamp secondHour = new CoreValidBatchTimestamp("id1", "runId1", OffsetDateTime.parse("2021-10-02T23:30Z"), new CoreValidFileResource("network1.txt", "http://path/to/cgm1/file"));
+
+        CoreValidBatchRequest batchRequest = new CoreValidBatchRequest("batchId", List.of(firstHour, secondHour), cbcora, glsk, refProg, studyPoints, true);
+        List<CoreValidRequest> coreValidRequests = batchRequest.toCoreValidRequests();
+
+        assertEquals(2, coreValidRequests.size());
+        CoreValidRequest secondRequest = coreValidRequests.get(1);
+        assertEquals("id1", secondRequest.getId());
+        assertEquals("runId1", secondRequest.getCurrentRunId());
+        assertEquals("2021-10-02T23:30Z", secondRequest.getTimestamp().toString());
+        assertEquals("network1.txt", secondRequest.getCgm().getFilename());
+        assertSame(cbcora, secondRequest.getCbcora());
+        assertSame(glsk, secondRequest.getGlsk());
+        assertSame(refProg, secondRequest.getRefProg());
+        assertSame(studyPoints, secondRequest.getStudyPoints());
+        assertTrue(secondRequest.getLaunchedAutomatically());
+    }
+
+    @Test
+    void checkEmptyBatchRequest() {
+        CoreValidBatchRequest batchRequest = new CoreValidBatchRequest("batchId", null, null, null, null, null, false);
+        assertTrue(batchRequest.toCoreValidRequests().isEmpty());
+        assertFalse(batchRequest.getLaunchedAutomatically());
+    }
+}
@@ -6,17 +6,23 @@
  */
 package com.farao_community.farao.gridcapa_core_valid.app;
 
+import com.farao_community.farao.gridcapa_core_valid.api.exception.AbstractCoreValidException;
 import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInternalException;
 import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidRaoException;
 import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
+import com.farao_community.farao.gridcapa_core_valid.app.PipelineGraph.Node;
+import com.farao_community.farao.gridcapa_core_valid.app.services.ArtifactsJanitor;
+import com.farao_community.farao.gridcapa_core_valid.app.services.CoreValidDayInputs;
 import com.farao_community.farao.gridcapa_core_valid.app.services.FileExporter;
 import com.farao_community.farao.gridcapa_core_valid.app.services.FileImporter;
 import com.farao_community.farao.gridcapa_core_valid.app.services.NetPositionsHandler;
+import com.farao_community.farao.gridcapa_core_valid.app.services.PraNetworkConversionStage;
 import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPoint;
+import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointCheckpointService;
 import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointData;
 import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointResult;
 import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointService;
-import com.farao_community.farao.minio_adapter.starter.MinioAdapter;
+import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointShiftWorkers;
 import com.farao_community.farao.rao_runner.api.resource.AbstractRaoResponse;
 import com.farao_community.farao.rao_runner.api.resource.RaoFailureResponse;
 import com.farao_community.farao.rao_runner.api.resource.RaoRequest;
@@ -26,21 +32,40 @@ import com.powsybl.glsk.commons.ZonalData;
 import com.powsybl.iidm.modification.scalable.Scalable;
 import com.powsybl.iidm.network.Network;
 import com.powsybl.openrao.data.crac.io.fbconstraint.FbConstraintCreationContext;
-import com.powsybl.openrao.data.refprog.referenceprogram.ReferenceProgram;
+import com.powsybl.openrao.data.raoresult.api.RaoResult;
 import com.powsybl.openrao.raoapi.parameters.RaoParameters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * @author Ameni Walha {@literal <ameni.walha at rte-france.com>}
@@ -58,27 +83,100 @@ public class CoreValidHandler {
     private final Logger eventsLogger;
     private final FileExporter fileExporter;
     private final FileImporter fileImporter;
-    private final MinioAdapter minioAdapter;
+    private final PraNetworkConversionStage praNetworkConversionStage;
+    private final ArtifactsJanitor artifactsJanitor;
     private final StudyPointService studyPointService;
+    private final StudyPointCheckpointService studyPointCheckpointService;
+    private final ExecutorService shiftExecutor;
+    private final ExecutorService postTreatmentExecutor;
+    private final ExecutorService pipelineCpuExecutor;
+    private final ExecutorService pipelineIoExecutor;
+    private final int shiftWorkers;
+    private final boolean pipelinedRaoDispatch;
+    private final boolean failFast;
+    private final boolean partialResults;
+    private final int failedStudyPointsRetries;
+    private final boolean applyPraLocally;
+    private final long timeBudget;
 
-    public CoreValidHandler(StudyPointService studyPointService, FileImporter fileImporter, FileExporter fileExporter, MinioAdapter minioAdapter, Logger eventsLogger) {
+    public CoreValidHandler(StudyPointService studyPointService,
+                            StudyPointCheckpointService studyPointCheckpointService,
+                            FileImporter fileImporter,
+                            FileExporter fileExporter,
+                            PraNetworkConversionStage praNetworkConversionStage,
+                            ArtifactsJanitor artifactsJanitor,
+                            Logger eventsLogger,
+                            @Qualifier("shiftExecutor") ExecutorService shiftExecutor,
+                            @Qualifier("postTreatmentExecutor") ExecutorService postTreatmentExecutor,
+                            @Qualifier("pipelineCpuExecutor") ExecutorService pipelineCpuExecutor,
+                            @Qualifier("pipelineIoExecutor") ExecutorService pipelineIoExecutor,
+                            @Value("${core-valid-runner.study-points.shift-workers:1}") int shiftWorkers,
+                            @Value("${core-valid-runner.study-points.pipelined-rao-dispatch:true}") boolean pipelinedRaoDispatch,
+                            @Value("${core-valid-runner.study-points.fail-fast:true}") boolean failFast,
+                            @Value("${core-valid-runner.study-points.partial-results:false}") boolean partialResults,
+                            @Value("${core-valid-runner.study-points.failed-retries:1}") int failedStudyPointsRetries,
+                            @Value("${core-valid-runner.study-points.apply-pra-locally:false}") boolean applyPraLocally,
+                            @Value("${core-valid-runner.study-points.time-budget:0}") long timeBudget) {
         this.studyPointService = studyPointService;
+        this.studyPointCheckpointService = studyPointCheckpointService;
         this.fileImporter = fileImporter;
         this.fileExporter = fileExporter;
-        this.minioAdapter = minioAdapter;
+        this.praNetworkConversionStage = praNetworkConversionStage;
+        this.artifactsJanitor = artifactsJanitor;
         this.eventsLogger = eventsLogger;
+        this.shiftExecutor = shiftExecutor;
+        this.postTreatmentExecutor = postTreatmentExecutor;
+        this.pipelineCpuExecutor = pipelineCpuExecutor;
+        this.pipelineIoExecutor = pipelineIoExecutor;
+        this.shiftWorkers = shiftWorkers;
+        this.pipelinedRaoDispatch = pipelinedRaoDispatch;
+        this.failFast = failFast;
+        this.partialResults = partialResults;
+        this.failedStudyPointsRetries = failedStudyPointsRetries;
+        this.applyPraLocally = applyPraLocally;
+        this.timeBudget = timeBudget;
     }
 
     public String handleCoreValidRequest(CoreValidRequest coreValidRequest) {
+        return handleCoreValidRequest(coreValidRequest, CoreValidDayInputs.of(fileImporter, coreValidRequest));
+    }
+
+    /**
+     * Handles a request using day files that may be shared with other requests of the same business day.
+     */
+    public String handleCoreValidRequest(CoreValidRequest coreValidRequest, CoreValidDayInputs dayInputs) {
         final String formattedTimestamp = setUpEventLogging(coreValidRequest);
+        final Instant deadline = getDeadline(coreValidRequest, Instant.now());
+        final OffsetDateTime timestamp = coreValidRequest.getTimestamp();
+        final PipelineGraph pipeline = new PipelineGraph(formattedTimestamp, pipelineCpuExecutor, pipelineIoExecutor);
 
         try {
-            Network network = fileImporter.importNetwork(coreValidRequest.getCgm());
-            FbConstraintCreationContext cracCreationContext = fileImporter.importCrac(coreValidRequest.getCbcora().getUrl(), coreValidRequest.getTimestamp(), network);
+            // Registered first, so that the artifacts are swept if the run crashes
+            Node<?>[] cleanupRegistration = coreValidRequest.getLaunchedAutomatically()
+                    ? new Node<?>[] {pipeline.ioAction("Artifacts cleanup registration", () -> artifactsJanitor.registerCleanup(getArtifactsPrefix(coreValidRequest)))}
+                    : new Node<?>[] {pipeline.ioAction("Checkpoints cleanup registration", () -> studyPointCheckpointService.registerCleanup(coreValidRequest))};
+            Node<List<StudyPoint>> studyPoints = pipeline.io("Study points import", () -> dayInputs.getStudyPoints(timestamp));
+            Node<Map<String, Double>> coreNetPositions = pipeline.io("Reference program import", () -> dayInputs.getCoreNetPositions(timestamp));
+            Node<GlskDocument> glskDocument = pipeline.io("GLSK import", dayInputs::getGlskDocument);
+            Node<Network> network = pipeline.io("CGM import", () -> fileImporter.importNetwork(coreValidRequest.getCgm()));
+            Node<FbConstraintCreationContext> cracCreationContext = pipeline.cpu("CRAC creation", () -> dayInputs.getCracCreationContext(timestamp, network.result()), network);
+            Node<ZonalData<Scalable>> scalableZonalData = pipeline.cpu("GLSK zonal scalables", () -> dayInputs.getZonalScalable(timestamp, network.result()), network, glskDocument);
+            Node<Set<StudyPoint>> restoredStudyPoints = pipeline.io("Checkpoints restore",
+                () -> restoreStudyPointsFromCheckpoints(coreValidRequest, studyPoints.result(), cracCreationContext.result(), formattedTimestamp), studyPoints, cracCreationContext);
+            // Artifacts of the RAOs are only needed when some study points are still to compute
+            Node<String> jsonCracUrl = pipeline.io("JSON CRAC upload",
+                () -> hasStudyPointsToCompute(studyPoints.result(), restoredStudyPoints.result()) ? fileExporter.saveCracInJsonFormat(cracCreationContext.result().getCrac(), timestamp) : null, restoredStudyPoints);
+            Node<String> raoParametersUrl = pipeline.io("RAO parameters upload",
+                () -> hasStudyPointsToCompute(studyPoints.result(), restoredStudyPoints.result()) ? fileExporter.saveRaoParametersAndGetUrl(RaoParameters.load()) : null, restoredStudyPoints);
 
-            List<StudyPointResult> studyPointResults = computeStudyPoints(coreValidRequest, network, cracCreationContext, formattedTimestamp);
+            List<StudyPointResult> studyPointResults = pipeline.inline("Study points shifts, RAOs and post-treatments", () -> {
+                StudyPointData studyPointData = new StudyPointData(network.result(), coreNetPositions.result(), scalableZonalData.result(), cracCreationContext.result(), jsonCracUrl.result(), raoParametersUrl.result());
+                return computeStudyPoints(coreValidRequest, studyPoints.result(), restoredStudyPoints.result(), studyPointData,
+                    workerNetwork -> dayInputs.getZonalScalable(timestamp, workerNetwork), formattedTimestamp, deadline);
+            }, restoredStudyPoints, coreNetPositions, scalableZonalData, jsonCracUrl, raoParametersUrl);
 
-            postTreatment(studyPointResults, coreValidRequest, cracCreationContext, formattedTimestamp);
+            postTreatment(pipeline, studyPointResults, coreValidRequest, cracCreationContext.result(), formattedTimestamp, cleanupRegistration);
+            submitPraNetworkConversions(coreValidRequest, network.result(), studyPoints.result(), restoredStudyPoints.result());
             return coreValidRequest.getId();
         } catch (InterruptedException e) {
             eventsLogger.error("Error during core request running for timestamp {}.", formattedTimestamp);
@@ -86,8 +184,33 @@ public class CoreValidHandler {
             throw new CoreValidInternalException(String.format("Error during core request running for timestamp '%s'", coreValidRequest.getTimestamp()), e);
         } catch (ExecutionException e) {
             eventsLogger.error("Error during core request running for timestamp {}.", formattedTimestamp);
+            if (e.getCause() instanceof AbstractCoreValidException coreValidException) {
+                throw coreValidException;
+            }
             throw new CoreValidInternalException(String.format("Error during core request running for timestamp '%s'", coreValidRequest.getTimestamp()), e);
+        } finally {
+            pipeline.logTimings();
+        }
+    }
+
+    private static boolean hasStudyPointsToCompute(List<StudyPoint> studyPoints, Set<StudyPoint> restoredStudyPoints) {
+        return restoredStudyPoints.size() < studyPoints.size();
+    }
+
+    /**
+     * Earliest of the request deadline and of the configured time budget, null if none of them is set.
+     */
+    private Instant getDeadline(CoreValidRequest coreValidRequest, Instant requestStart) {
+        Instant budgetDeadline = timeBudget > 0 ? requestStart.plusMillis(timeBudget) : null;
+        Instant requestDeadline = coreValidRequest.getDeadline() != null ? coreValidRequest.getDeadline().toInstant() : null;
+        if (budgetDeadline == null || requestDeadline == null) {
+            return budgetDeadline != null ? budgetDeadline : requestDeadline;
         }
+        return budgetDeadline.isBefore(requestDeadline) ? budgetDeadline : requestDeadline;
+    }
+
+    private static boolean isDeadlineReached(Instant deadline) {
+        return deadline != null && !Instant.now().isBefore(deadline);
     }
 
     private static String setUpEventLogging(CoreValidRequest coreValidRequest) {
@@ -95,89 +218,391 @@ public class CoreValidHandler {
         return TIMESTAMP_FORMATTER.format(coreValidRequest.getTimestamp());
     }
 
-    private List<StudyPointResult> computeStudyPoints(CoreValidRequest coreValidRequest, Network network, FbConstraintCreationContext cracCreationContext, String formattedTimestamp) throws InterruptedException, ExecutionException {
-        Map<StudyPoint, RaoRequest> studyPointRaoRequests = new HashMap<>();
-        Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures = new HashMap<>();
+    private List<StudyPointResult> computeStudyPoints(CoreValidRequest coreValidRequest, List<StudyPoint> studyPoints, Set<StudyPoint> restoredStudyPoints, StudyPointData studyPointData,
+                                                      Function<Network, ZonalData<Scalable>> zonalScalableFactory, String formattedTimestamp, Instant deadline) throws InterruptedException, ExecutionException {
         List<StudyPointResult> studyPointResults = new ArrayList<>();
-
-        List<StudyPoint> studyPoints = fileImporter.importStudyPoints(coreValidRequest.getStudyPoints(), coreValidRequest.getTimestamp());
         if (!studyPoints.isEmpty()) {
-            StudyPointData studyPointData = fillStudyPointData(coreValidRequest, network, cracCreationContext);
-            studyPoints.forEach(studyPoint -> studyPointRaoRequests.put(studyPoint, studyPointService.computeStudyPointShift(studyPoint, studyPointData, coreValidRequest.getTimestamp(), coreValidRequest.getId(), coreValidRequest.getCurrentRunId())));
-            eventsLogger.info("All studypoints shifts are done for timestamp {}", formattedTimestamp);
-            runRaoForEachStudyPoint(studyPointRaoRequests, studyPointCompletableFutures);
-            studyPointResults = fillResultsForEachStudyPoint(studyPointData, studyPointCompletableFutures);
+            List<StudyPoint> studyPointsToCompute = studyPoints.stream().filter(studyPoint -> !restoredStudyPoints.contains(studyPoint)).toList();
+            Map<StudyPoint, StudyPointResult> computedResults = new HashMap<>();
+            if (!studyPointsToCompute.isEmpty()) {
+                List<StudyPoint> orderedStudyPoints = orderByExpectedCost(studyPointsToCompute, studyPointData);
+                // Workers are kept until the post-treatments, which use them to apply PRAs locally
+                StudyPointShiftWorkers shiftWorkersPool = new StudyPointShiftWorkers(studyPointData, Math.min(shiftWorkers, orderedStudyPoints.size()), zonalScalableFactory);
+                computedResults.putAll(runStudyPoints(orderedStudyPoints, shiftWorkersPool, coreValidRequest, studyPointData, formattedTimestamp, deadline));
+                retryFailedStudyPoints(orderedStudyPoints, computedResults, shiftWorkersPool, coreValidRequest, studyPointData, formattedTimestamp, deadline);
+                logFailedStudyPoints(orderedStudyPoints.stream().map(computedResults::get).toList(), formattedTimestamp);
+            }
+            // Results keep the order of the study points file, whether they were restored or computed
+            for (StudyPoint studyPoint : studyPoints) {
+                studyPointResults.add(restoredStudyPoints.contains(studyPoint) ? studyPoint.getStudyPointResult() : computedResults.get(studyPoint));
+            }
         }
         return studyPointResults;
     }
 
-    private StudyPointData fillStudyPointData(CoreValidRequest coreValidRequest, Network network, FbConstraintCreationContext cracCreationContext) {
-        ReferenceProgram referenceProgram = fileImporter.importReferenceProgram(coreValidRequest.getRefProg(), coreValidRequest.getTimestamp());
-        Map<String, Double> coreNetPositions = NetPositionsHandler.computeCoreReferenceNetPositions(referenceProgram);
-        GlskDocument glskDocument = fileImporter.importGlskFile(coreValidRequest.getGlsk());
-        ZonalData<Scalable> scalableZonalData = glskDocument.getZonalScalable(network, coreValidRequest.getTimestamp().toInstant());
-        String jsonCracUrl = fileExporter.saveCracInJsonFormat(cracCreationContext.getCrac(), coreValidRequest.getTimestamp());
-        RaoParameters raoParameters = RaoParameters.load();
-        String raoParametersUrl = fileExporter.saveRaoParametersAndGetUrl(raoParameters);
-        return new StudyPointData(network, coreNetPositions, scalableZonalData, cracCreationContext, jsonCracUrl, raoParametersUrl);
+    private Map<StudyPoint, StudyPointResult> runStudyPoints(List<StudyPoint> studyPoints, StudyPointShiftWorkers shiftWorkersPool, CoreValidRequest coreValidRequest, StudyPointData studyPointData,
+                                                             String formattedTimestamp, Instant deadline) throws InterruptedException, ExecutionException {
+        long phaseStart = System.currentTimeMillis();
+        Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures = shiftAndRunRaoForEachStudyPoint(studyPoints, shiftWorkersPool, coreValidRequest, deadline);
+        eventsLogger.info("All studypoints shifts are done for timestamp {}", formattedTimestamp);
+        phaseStart = logPhaseDuration("Study points shift and RAO dispatch", formattedTimestamp, phaseStart);
+        List<StudyPointResult> results;
+        try {
+            results = fillResultsForEachStudyPoint(studyPointData, studyPointCompletableFutures, studyPointResult -> studyPointCheckpointService.save(coreValidRequest, studyPointResult), deadline, shiftWorkersPool);
+        } catch (ExecutionException | AbstractCoreValidException e) {
+            if (failFast) {
+                studyPointService.stopStudyPointRaos(coreValidRequest.getCurrentRunId());
+            }
+            throw e;
+        }
+        logPhaseDuration("RAO computations and results post-treatment", formattedTimestamp, phaseStart);
+        if (isDeadlineReached(deadline) && results.stream().anyMatch(StudyPointResult::isInError)) {
+            studyPointService.stopStudyPointRaos(coreValidRequest.getCurrentRunId());
+        }
+        Map<StudyPoint, StudyPointResult> computedResults = new HashMap<>();
+        Iterator<StudyPointResult> resultsIterator = results.iterator();
+        studyPointCompletableFutures.keySet().forEach(studyPoint -> computedResults.put(studyPoint, resultsIterator.next()));
+        return computedResults;
+    }
+
+    /**
+     * In partial results mode, failed study points are shifted and sent to the RAO again within the same run,
+     * as long as the deadline is not reached. Study points still failing are left for a rerun of the task.
+     */
+    private void retryFailedStudyPoints(List<StudyPoint> studyPoints, Map<StudyPoint, StudyPointResult> computedResults, StudyPointShiftWorkers shiftWorkersPool, CoreValidRequest coreValidRequest,
+                                        StudyPointData studyPointData, String formattedTimestamp, Instant deadline) throws InterruptedException, ExecutionException {
+        if (!partialResults) {
+            return;
+        }
+        for (int attempt = 1; attempt <= failedStudyPointsRetries && !isDeadlineReached(deadline); attempt++) {
+            List<StudyPoint> failedStudyPoints = studyPoints.stream().filter(studyPoint -> computedResults.get(studyPoint).isInError()).toList();
+            if (failedStudyPoints.isEmpty()) {
+                return;
+            }
+            eventsLogger.warn("Retrying {} failed studypoints for timestamp {} (attempt {}/{}): {}", failedStudyPoints.size(), formattedTimestamp, attempt, failedStudyPointsRetries,
+                failedStudyPoints.stream().map(StudyPoint::getVerticeId).toList());
+            failedStudyPoints.forEach(studyPoint -> studyPoint.getStudyPointResult().setStatus(StudyPointResult.Status.NOT_STARTED));
+            computedResults.putAll(runStudyPoints(failedStudyPoints, shiftWorkersPool, coreValidRequest, studyPointData, formattedTimestamp, deadline));
+        }
+    }
+
+    /**
+     * Study points furthest from the reference program are dispatched first: their RAOs are expected to be the longest,
+     * and they are the ones bounding the validated domain.
+     */
+    private static List<StudyPoint> orderByExpectedCost(List<StudyPoint> studyPoints, StudyPointData studyPointData) {
+        Map<StudyPoint, Double> shiftVolumes = new HashMap<>();
+        studyPoints.forEach(studyPoint -> shiftVolumes.put(studyPoint, NetPositionsHandler.computeShiftVolume(studyPoint, studyPointData.getCoreNetPositions())));
+        return studyPoints.stream()
+                .sorted(Comparator.comparing(shiftVolumes::get, Comparator.reverseOrder()))
+                .toList();
+    }
+
+    private Set<StudyPoint> restoreStudyPointsFromCheckpoints(CoreValidRequest coreValidRequest, List<StudyPoint> studyPoints, FbConstraintCreationContext cracCreationContext, String formattedTimestamp) {
+        if (studyPoints.isEmpty()) {
+            return Set.of();
+        }
+        Set<StudyPoint> restoredStudyPoints = studyPoints.stream()
+                .filter(studyPoint -> studyPointCheckpointService.restore(coreValidRequest, studyPoint, cracCreationContext.getCrac()))
+                .collect(Collectors.toSet());
+        if (!restoredStudyPoints.isEmpty()) {
+            eventsLogger.info("{} studypoints out of {} already computed for timestamp {}, they will not be computed again", restoredStudyPoints.size(), studyPoints.size(), formattedTimestamp);
+        }
+        return restoredStudyPoints;
+    }
+
+    private Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> shiftAndRunRaoForEachStudyPoint(List<StudyPoint> studyPoints, StudyPointShiftWorkers shiftWorkersPool, CoreValidRequest coreValidRequest, Instant deadline) throws InterruptedException, ExecutionException {
+        Map<StudyPoint, CompletableFuture<RaoRequest>> studyPointShifts = new LinkedHashMap<>();
+        Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures = new LinkedHashMap<>();
+        for (StudyPoint studyPoint : studyPoints) {
+            if (isDeadlineReached(deadline)) {
+                studyPointCompletableFutures.put(studyPoint, getDeadlineReachedFuture(studyPoint));
+                continue;
+            }
+            CompletableFuture<RaoRequest> shift = shiftStudyPoint(studyPoint, shiftWorkersPool, coreValidRequest);
+            studyPointShifts.put(studyPoint, shift);
+            if (pipelinedRaoDispatch) {
+                // Each RAO is sent as soon as its shifted CGM is uploaded, so that shifts and RAO computations overlap
+                studyPointCompletableFutures.put(studyPoint, runRaoAfterShift(studyPoint, shift, deadline));
+            }
+        }
+        CompletableFuture.allOf(studyPointShifts.values().toArray(new CompletableFuture[0])).get();
+        if (!pipelinedRaoDispatch) {
+            studyPointShifts.forEach((studyPoint, shift) -> studyPointCompletableFutures.put(studyPoint, runRaoBeforeDeadline(studyPoint, shift.join(), deadline)));
+        }
+        return studyPointCompletableFutures;
+    }
+
+    private CompletableFuture<AbstractRaoResponse> runRaoBeforeDeadline(StudyPoint studyPoint, RaoRequest raoRequest, Instant deadline) {
+        if (isDeadlineReached(deadline)) {
+            return getDeadlineReachedFuture(studyPoint);
+        }
+        return runRaoForStudyPoint(studyPoint, raoRequest);
+    }
+
+    private static CompletableFuture<AbstractRaoResponse> getDeadlineReachedFuture(StudyPoint studyPoint) {
+        return CompletableFuture.failedFuture(new DeadlineReachedException(String.format("Deadline reached before RAO dispatch of studypoint %s", studyPoint.getVerticeId())));
+    }
+
+    /**
+     * Unlike thenCompose, cancelling the returned future also cancels the RAO, or prevents its dispatch.
+     */
+    private CompletableFuture<AbstractRaoResponse> runRaoAfterShift(StudyPoint studyPoint, CompletableFuture<RaoRequest> shift, Instant deadline) {
+        CompletableFuture<AbstractRaoResponse> raoResponse = new CompletableFuture<>();
+        shift.whenComplete((raoRequest, shiftException) -> {
+            if (shiftException != null) {
+                raoResponse.completeExceptionally(shiftException);
+                return;
+            }
+            if (raoResponse.isDone()) {
+                return;
+            }
+            try {
+                CompletableFuture<AbstractRaoResponse> rao = runRaoBeforeDeadline(studyPoint, raoRequest, deadline);
+                raoResponse.whenComplete((response, exception) -> {
+                    if (raoResponse.isCancelled()) {
+                        rao.cancel(true);
+                    }
+                });
+                rao.whenComplete((response, exception) -> {
+                    if (exception == null) {
+                        raoResponse.complete(response);
+                    } else {
+                        raoResponse.completeExceptionally(exception);
+                    }
+                });
+            } catch (RuntimeException e) {
+                raoResponse.completeExceptionally(e);
+            }
+        });
+        return raoResponse;
+    }
+
+    private CompletableFuture<RaoRequest> shiftStudyPoint(StudyPoint studyPoint, StudyPointShiftWorkers shiftWorkersPool, CoreValidRequest coreValidRequest) {
+        if (shiftWorkersPool.getMaxWorkers() == 1) {
+            return CompletableFuture.completedFuture(computeStudyPointShift(studyPoint, shiftWorkersPool, coreValidRequest));
+        }
+        return CompletableFuture.supplyAsync(MdcContext.wrap(() -> computeStudyPointShift(studyPoint, shiftWorkersPool, coreValidRequest)), shiftExecutor);
     }
 
-    private void runRaoForEachStudyPoint(Map<StudyPoint, RaoRequest> studyPointRaoRequests, Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures) throws ExecutionException, InterruptedException {
-        studyPointRaoRequests.forEach((studyPoint, raoRequest) -> {
-            CompletableFuture<AbstractRaoResponse> futureRaoResponse = studyPointService.computeStudyPointRao(studyPoint, raoRequest);
-            studyPointCompletableFutures.put(studyPoint, futureRaoResponse);
-            futureRaoResponse.thenApply(raoResponse -> {
-                LOGGER.info("End of RAO for studypoint {} ...", studyPoint.getVerticeId());
+    private RaoRequest computeStudyPointShift(StudyPoint studyPoint, StudyPointShiftWorkers shiftWorkersPool, CoreValidRequest coreValidRequest) {
+        return runWithWorker(shiftWorkersPool, studyPoint, workerData -> studyPointService.computeStudyPointShift(studyPoint, workerData, coreValidRequest.getTimestamp(), coreValidRequest.getId(), coreValidRequest.getCurrentRunId()));
+    }
+
+    private static <T> T runWithWorker(StudyPointShiftWorkers shiftWorkersPool, StudyPoint studyPoint, Function<StudyPointData, T> task) {
+        return runWithWorker(shiftWorkersPool, studyPoint, workerData -> true, task);
+    }
+
+    private static <T> T runWithWorker(StudyPointShiftWorkers shiftWorkersPool, StudyPoint studyPoint, Predicate<StudyPointData> workerFilter, Function<StudyPointData, T> task) {
+        try {
+            return shiftWorkersPool.runWithWorker(workerFilter, task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CoreValidInternalException(String.format("Interrupted during shift of studypoint %s", studyPoint.getVerticeId()), e);
+        }
+    }
+
+    private CompletableFuture<AbstractRaoResponse> runRaoForStudyPoint(StudyPoint studyPoint, RaoRequest raoRequest) {
+        CompletableFuture<AbstractRaoResponse> futureRaoResponse = studyPointService.computeStudyPointRao(studyPoint, raoRequest);
+        futureRaoResponse.thenApply(raoResponse -> {
+            LOGGER.info("End of RAO for studypoint {} ...", studyPoint.getVerticeId());
+            return null;
+        }).exceptionally(exception -> {
+            if (exception instanceof CancellationException || exception.getCause() instanceof CancellationException) {
+                // Cancelled because another study point failed, which has already been reported
                 return null;
-            }).exceptionally(exception -> {
-                studyPoint.getStudyPointResult().setStatusToError();
-                final String message = String.format("Error during RAO computation for studypoint %s.", studyPoint.getVerticeId());
-                eventsLogger.error(message);
-                throw new CoreValidRaoException(message);
-            });
+            }
+            studyPoint.getStudyPointResult().setStatusToError();
+            final String message = String.format("Error during RAO computation for studypoint %s.", studyPoint.getVerticeId());
+            eventsLogger.error(message);
+            throw new CoreValidRaoException(message);
         });
-        CompletableFuture.allOf(studyPointCompletableFutures.values().toArray(new CompletableFuture[0])).get();
+        return futureRaoResponse;
     }
 
-    List<StudyPointResult> fillResultsForEachStudyPoint(StudyPointData studyPointData, Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures) throws InterruptedException, ExecutionException {
-        List<StudyPointResult> studyPointResults = new ArrayList<>();
-        for (Map.Entry<StudyPoint, CompletableFuture<AbstractRaoResponse>> entry : studyPointCompletableFutures.entrySet()) {
-            StudyPoint studyPoint = entry.getKey();
-
-            final AbstractRaoResponse abstractRaoResponse = entry.getValue().get();
-            if (abstractRaoResponse.isRaoFailed()) {
-                RaoFailureResponse failureResponse = (RaoFailureResponse) abstractRaoResponse;
-                final String message = String.format("Error during RAO computation for studypoint %s: %s.", studyPoint.getVerticeId(), failureResponse.getErrorMessage());
-                eventsLogger.error(message);
-                throw new CoreValidRaoException(message);
-            }
-            RaoSuccessResponse raoResponse = (RaoSuccessResponse) abstractRaoResponse;
-            Network networkWithPra = fileImporter.importNetworkFromUrl(raoResponse.getNetworkWithPraFileUrl());
-            String fileName = networkWithPra.getNameOrId() + "_" + studyPoint.getVerticeId() + "_withPra.uct";
-            fileExporter.saveShiftedCgmWithPra(networkWithPra, fileName);
-            studyPointResults.add(studyPointService.postTreatRaoResult(studyPoint, studyPointData, raoResponse));
+    private static long logPhaseDuration(String phase, String formattedTimestamp, long phaseStart) {
+        long phaseEnd = System.currentTimeMillis();
+        LOGGER.info("{} took {} ms for timestamp {}", phase, phaseEnd - phaseStart, formattedTimestamp);
+        return phaseEnd;
+    }
+
+    /**
+     * @param deadline instant after which study points not finished are exported in error, null if none
+     * @param shiftWorkersPool workers used to apply PRAs locally, null when they are not applied locally
+     */
+    List<StudyPointResult> fillResultsForEachStudyPoint(StudyPointData studyPointData, Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures, Consumer<StudyPointResult> onStudyPointDone, Instant deadline, StudyPointShiftWorkers shiftWorkersPool) throws InterruptedException, ExecutionException {
+        // Each study point is post-treated as soon as its own RAO is over, without waiting for the other ones
+        List<CompletableFuture<StudyPointResult>> studyPointPostTreatments = studyPointCompletableFutures.entrySet().stream()
+                .map(entry -> {
+                    CompletableFuture<StudyPointResult> postTreatment = entry.getValue().thenApplyAsync(MdcContext.wrap((AbstractRaoResponse abstractRaoResponse) -> {
+                        StudyPointResult studyPointResult = postTreatStudyPoint(entry.getKey(), studyPointData, abstractRaoResponse, shiftWorkersPool);
+                        onStudyPointDone.accept(studyPointResult);
+                        return studyPointResult;
+                    }), postTreatmentExecutor);
+                    // Study points not finished in time are exported in error, whatever the partial results mode
+                    return postTreatment.exceptionallyCompose(exception -> partialResults || isNotFinishedInTime(exception, deadline)
+                            ? CompletableFuture.completedFuture(getFailedStudyPointResult(entry.getKey(), exception))
+                            : CompletableFuture.failedFuture(exception));
+                })
+                .toList();
+        try {
+            waitForPostTreatments(studyPointPostTreatments, studyPointCompletableFutures, deadline);
+        } catch (ExecutionException e) {
+            if (failFast) {
+                cancelOutstandingStudyPoints(studyPointCompletableFutures.values(), studyPointPostTreatments);
+            }
+            if (e.getCause() instanceof AbstractCoreValidException coreValidException) {
+                throw coreValidException;
+            }
+            throw e;
+        }
+        return studyPointPostTreatments.stream().map(CompletableFuture::join).toList();
+    }
+
+    private static StudyPointResult getFailedStudyPointResult(StudyPoint studyPoint, Throwable exception) {
+        LOGGER.warn("Studypoint {} failed, it is exported in error", studyPoint.getVerticeId(), exception);
+        StudyPointResult studyPointResult = studyPoint.getStudyPointResult();
+        studyPointResult.setStatusToError();
+        studyPointResult.setPeriod(String.valueOf(studyPoint.getPeriod()));
+        return studyPointResult;
+    }
+
+    private void logFailedStudyPoints(List<StudyPointResult> studyPointResults, String formattedTimestamp) {
+        List<String> failedVerticeIds = studyPointResults.stream()
+                .filter(StudyPointResult::isInError)
+                .map(StudyPointResult::getId)
+                .toList();
+        if (!failedVerticeIds.isEmpty()) {
+            // Successful studypoints are checkpointed, so a rerun of the task only computes the failed ones again
+            eventsLogger.warn("{} studypoints failed for timestamp {}: {}. Rerun the task to compute them again.", failedVerticeIds.size(), formattedTimestamp, failedVerticeIds);
         }
-        return studyPointResults;
     }
 
-    private void postTreatment(List<StudyPointResult> studyPointResults, CoreValidRequest coreValidRequest, FbConstraintCreationContext cracCreationContext, String formattedTimestamp) {
-        saveProcessOutputs(studyPointResults, coreValidRequest, cracCreationContext);
+    private static boolean isNotFinishedInTime(Throwable exception, Instant deadline) {
+        Throwable cause = exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception;
+        // Only the study points given up because of the deadline, other timeouts being actual failures
+        return deadline != null && (cause instanceof DeadlineReachedException || (cause instanceof CancellationException && isDeadlineReached(deadline)));
+    }
+
+    private void waitForPostTreatments(List<CompletableFuture<StudyPointResult>> studyPointPostTreatments, Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures, Instant deadline) throws InterruptedException, ExecutionException {
+        CompletableFuture<Void> postTreatmentsDone = waitForPostTreatments(studyPointPostTreatments);
+        if (deadline == null) {
+            postTreatmentsDone.get();
+            return;
+        }
+        try {
+            postTreatmentsDone.get(Math.max(0, Duration.between(Instant.now(), deadline).toMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // RAOs still running are given up, their study points are exported in error
+            List<String> unfinishedVerticeIds = studyPointCompletableFutures.entrySet().stream()
+                    .filter(entry -> entry.getValue().cancel(true))
+                    .map(entry -> entry.getKey().getVerticeId())
+                    .toList();
+            eventsLogger.warn("Deadline reached, studypoints {} did not finish in time", unfinishedVerticeIds);
+            postTreatmentsDone.get();
+        }
+    }
+
+    private CompletableFuture<Void> waitForPostTreatments(List<CompletableFuture<StudyPointResult>> studyPointPostTreatments) {
+        CompletableFuture<Void> allPostTreatments = CompletableFuture.allOf(studyPointPostTreatments.toArray(new CompletableFuture[0]));
+        if (!failFast) {
+            return allPostTreatments;
+        }
+        // Completes on the first failed study point, without waiting for the RAOs of the other ones
+        CompletableFuture<Void> firstFailureOrAll = new CompletableFuture<>();
+        studyPointPostTreatments.forEach(postTreatment -> postTreatment.whenComplete((result, exception) -> {
+            if (exception != null) {
+                firstFailureOrAll.completeExceptionally(exception);
+            }
+        }));
+        allPostTreatments.whenComplete((result, exception) -> {
+            if (exception == null) {
+                firstFailureOrAll.complete(null);
+            } else {
+                firstFailureOrAll.completeExceptionally(exception);
+            }
+        });
+        return firstFailureOrAll;
+    }
+
+    private static void cancelOutstandingStudyPoints(Collection<CompletableFuture<AbstractRaoResponse>> raoResponses, List<CompletableFuture<StudyPointResult>> studyPointPostTreatments) {
+        long cancelledRaos = raoResponses.stream().filter(raoResponse -> raoResponse.cancel(true)).count();
+        studyPointPostTreatments.forEach(postTreatment -> postTreatment.cancel(true));
+        LOGGER.warn("Study point failed, {} outstanding RAO computations cancelled", cancelledRaos);
+    }
+
+    private StudyPointResult postTreatStudyPoint(StudyPoint studyPoint, StudyPointData studyPointData, AbstractRaoResponse abstractRaoResponse, StudyPointShiftWorkers shiftWorkersPool) {
+        if (abstractRaoResponse.isRaoFailed()) {
+            RaoFailureResponse failureResponse = (RaoFailureResponse) abstractRaoResponse;
+            final String message = String.format("Error during RAO computation for studypoint %s: %s.", studyPoint.getVerticeId(), failureResponse.getErrorMessage());
+            eventsLogger.error(message);
+            throw new CoreValidRaoException(message);
+        }
+        RaoSuccessResponse raoResponse = (RaoSuccessResponse) abstractRaoResponse;
+        if (applyPraLocally && shiftWorkersPool != null) {
+            RaoResult raoResult = studyPointService.importRaoResult(studyPointData, raoResponse);
+            // PRAs are applied on the shifted network sent to the RAO, kept by the worker which shifted it
+            runWithWorker(shiftWorkersPool, studyPoint, workerData -> StudyPointService.hasShiftedVariant(workerData.getNetwork(), studyPoint),
+                workerData -> studyPointService.saveShiftedCgmWithPra(studyPoint, workerData, raoResult));
+            return studyPointService.postTreatRaoResult(studyPoint, studyPointData, raoResponse, raoResult);
+        }
+        // Network with PRA is converted to UCTE in the background, once the results are published
+        return studyPointService.postTreatRaoResult(studyPoint, studyPointData, raoResponse);
+    }
+
+    private void postTreatment(PipelineGraph pipeline, List<StudyPointResult> studyPointResults, CoreValidRequest coreValidRequest, FbConstraintCreationContext cracCreationContext, String formattedTimestamp, Node<?>[] cleanupRegistration) throws InterruptedException, ExecutionException {
+        Node<?>[] exports = saveProcessOutputs(pipeline, studyPointResults, coreValidRequest, cracCreationContext);
+        // Like the former sequential exports, outputs not exported yet are given up once one of them fails
+        pipeline.awaitAllOrCancel(exports);
         if (coreValidRequest.getLaunchedAutomatically()) {
-            deleteArtifacts(coreValidRequest);
+            pipeline.awaitAll(cleanupRegistration);
+            if (studyPointResults.stream().anyMatch(StudyPointResult::isInError)) {
+                // Checkpoints of the successful study points are kept for a rerun, the registered cleanup sweeps them later
+                eventsLogger.info("Artifacts of timestamp {} are kept until a rerun computes the failed studypoints", formattedTimestamp);
+            } else {
+                // Artifacts are deleted in the background, the request does not wait for it
+                artifactsJanitor.cleanUp(getArtifactsPrefix(coreValidRequest));
+            }
+        } else if (studyPointResults.stream().noneMatch(StudyPointResult::isInError)) {
+            pipeline.awaitAll(cleanupRegistration);
+            // Checkpoints of manual runs are only needed by a rerun of their failed study points
+            studyPointCheckpointService.cleanUp(coreValidRequest);
         }
         eventsLogger.info("Process done for timestamp {}.", formattedTimestamp);
     }
 
-    private void saveProcessOutputs(List<StudyPointResult> studyPointResults, CoreValidRequest coreValidRequest, FbConstraintCreationContext cracCreationContext) {
-        fileExporter.exportStudyPointResult(studyPointResults, coreValidRequest, cracCreationContext);
+    private Node<?>[] saveProcessOutputs(PipelineGraph pipeline, List<StudyPointResult> studyPointResults, CoreValidRequest coreValidRequest, FbConstraintCreationContext cracCreationContext) {
+        List<Node<?>> exports = new ArrayList<>();
+        if (coreValidRequest.getLaunchedAutomatically()) {
+            exports.add(pipeline.ioAction("Main result export", () -> fileExporter.exportMainResult(studyPointResults, coreValidRequest)));
+        }
+        exports.add(pipeline.ioAction("REX result export", () -> fileExporter.exportRexResult(studyPointResults, coreValidRequest)));
+        exports.add(pipeline.ioAction("Remedial actions export", () -> fileExporter.exportRemedialActions(studyPointResults, coreValidRequest, cracCreationContext)));
+        return exports.toArray(new Node<?>[0]);
     }
 
-    private void deleteArtifacts(CoreValidRequest coreValidRequest) {
-        deleteCgmBeforeRao(ARTIFACTS_FORMATTER.format(coreValidRequest.getTimestamp().atZoneSameInstant(ZoneId.of("Europe/Paris"))));
+    private static String getArtifactsPrefix(CoreValidRequest coreValidRequest) {
+        return ARTIFACTS_FORMATTER.format(coreValidRequest.getTimestamp().atZoneSameInstant(ZoneId.of("Europe/Paris")));
     }
 
-    private void deleteCgmBeforeRao(String prefix) {
-        List<String> results = minioAdapter.listFiles("artifacts/" + prefix);
-        minioAdapter.deleteFiles(results);
+    /**
+     * Networks with PRA of the study points computed by this run are converted to UCTE by the background stage.
+     * Conversions of automatic runs whose artifact would be removed by the artifacts cleanup are not done at all.
+     */
+    private void submitPraNetworkConversions(CoreValidRequest coreValidRequest, Network network, List<StudyPoint> studyPoints, Set<StudyPoint> restoredStudyPoints) {
+        if (applyPraLocally) {
+            return;
+        }
+        String artifactsPrefix = getArtifactsPrefix(coreValidRequest);
+        studyPoints.stream()
+                .filter(studyPoint -> !restoredStudyPoints.contains(studyPoint))
+                .map(StudyPoint::getStudyPointResult)
+                .filter(result -> result.getStatus() == StudyPointResult.Status.SUCCESS && result.getNetworkWithPraUrl() != null)
+                .forEach(result -> {
+                    String fileName = network.getNameOrId() + "_" + result.getId() + "_withPra.uct";
+                    if (!coreValidRequest.getLaunchedAutomatically() || !fileName.startsWith(artifactsPrefix)) {
+                        praNetworkConversionStage.submit(result.getNetworkWithPraUrl(), fileName);
+                    }
+                });
     }
 }
@@ -11,17 +11,32 @@ import com.farao_community.farao.gridcapa.task_manager.api.TaskStatus;
 import com.farao_community.farao.gridcapa.task_manager.api.TaskStatusUpdate;
 import com.farao_community.farao.gridcapa_core_valid.api.JsonApiConverter;
 import com.farao_community.farao.gridcapa_core_valid.api.exception.AbstractCoreValidException;
+import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidBatchRequest;
 import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
+import com.farao_community.farao.gridcapa_core_valid.app.services.CoreValidDayInputs;
+import com.farao_community.farao.gridcapa_core_valid.app.services.FileImporter;
+import com.farao_community.farao.gridcapa_core_valid.app.services.InputsPrefetcher;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * @author Ameni Walha {@literal <ameni.walha at rte-france.com>}
@@ -34,36 +49,117 @@ public class CoreValidListener {
 
     private final JsonApiConverter jsonApiConverter;
     private final CoreValidHandler coreValidHandler;
+    private final FileImporter fileImporter;
     private final StreamBridge streamBridge;
+    private final RequestAdmissionGuard requestAdmissionGuard;
+    private final int requestsConcurrency;
+    private final Scheduler requestsScheduler;
+    private final ExecutorService batchExecutor;
+    private final InputsPrefetcher inputsPrefetcher;
 
     public CoreValidListener(final CoreValidHandler coreValidHandler,
-                             final StreamBridge streamBridge) {
+                             final FileImporter fileImporter,
+                             final InputsPrefetcher inputsPrefetcher,
+                             final StreamBridge streamBridge,
+                             final RequestAdmissionGuard requestAdmissionGuard,
+                             @Qualifier("batchExecutor") final ExecutorService batchExecutor,
+                             @Value("${core-valid-runner.requests.concurrency:1}") final int requestsConcurrency) {
         this.streamBridge = streamBridge;
         this.jsonApiConverter = new JsonApiConverter();
         this.coreValidHandler = coreValidHandler;
+        this.fileImporter = fileImporter;
+        this.inputsPrefetcher = inputsPrefetcher;
+        this.batchExecutor = batchExecutor;
+        this.requestAdmissionGuard = requestAdmissionGuard;
+        this.requestsConcurrency = Math.max(1, requestsConcurrency);
+        this.requestsScheduler = Schedulers.newBoundedElastic(this.requestsConcurrency, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "core-valid-request");
     }
 
     @Bean
     public Consumer<Flux<byte[]>> request() {
+        // Each request is run on its own thread, at most requestsConcurrency requests at the same time
         return flux -> flux
-                .doOnNext(this::onMessage)
+                .flatMap(message -> Mono.fromRunnable(() -> onMessage(message)).subscribeOn(requestsScheduler), requestsConcurrency)
                 .subscribe();
     }
 
+    @Bean
+    public Consumer<Flux<byte[]>> batchRequest() {
+        return flux -> flux
+                .flatMap(message -> Mono.fromRunnable(() -> onBatchMessage(message)).subscribeOn(requestsScheduler), requestsConcurrency)
+                .subscribe();
+    }
+
+    /**
+     * Hints about upcoming requests, whose inputs are imported in the background while the current ones run.
+     */
+    @Bean
+    public Consumer<Flux<byte[]>> prefetch() {
+        return flux -> flux.subscribe(this::onPrefetchMessage);
+    }
+
+    @PreDestroy
+    public void disposeScheduler() {
+        requestsScheduler.dispose();
+    }
+
     public void onMessage(final byte[] req) {
         try {
             final CoreValidRequest coreValidRequest = jsonApiConverter.fromJsonMessage(req, CoreValidRequest.class);
             runCoreValidRequest(coreValidRequest);
         } catch (final RuntimeException e) {
             LOGGER.error("Core valid exception occurred", e);
+        } finally {
+            // Threads are reused between requests, logging context must not leak to the next one
+            MDC.clear();
+        }
+    }
+
+    public void onBatchMessage(final byte[] req) {
+        try {
+            final CoreValidBatchRequest coreValidBatchRequest = jsonApiConverter.fromJsonMessage(req, CoreValidBatchRequest.class);
+            LOGGER.info("Core valid batch request received: {}", coreValidBatchRequest);
+            // Day files are shared by all the timestamps of the batch, which are computed concurrently within the limits of the admission guard
+            final CoreValidDayInputs dayInputs = new CoreValidDayInputs(fileImporter, coreValidBatchRequest.getCbcora(), coreValidBatchRequest.getGlsk(), coreValidBatchRequest.getRefProg(), coreValidBatchRequest.getStudyPoints());
+            final List<CompletableFuture<Void>> timestampRuns = coreValidBatchRequest.toCoreValidRequests().stream()
+                    .map(coreValidRequest -> CompletableFuture.runAsync(MdcContext.wrap(() -> runCoreValidRequest(coreValidRequest, () -> coreValidHandler.handleCoreValidRequest(coreValidRequest, dayInputs))), batchExecutor))
+                    .toList();
+            CompletableFuture.allOf(timestampRuns.toArray(new CompletableFuture[0])).join();
+            LOGGER.info("Core valid batch request {} done", coreValidBatchRequest.getId());
+        } catch (final RuntimeException e) {
+            LOGGER.error("Core valid batch exception occurred", e);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    public void onPrefetchMessage(final byte[] req) {
+        try {
+            final CoreValidRequest coreValidRequest = jsonApiConverter.fromJsonMessage(req, CoreValidRequest.class);
+            LOGGER.info("Core valid prefetch hint received for timestamp {}", coreValidRequest.getTimestamp());
+            inputsPrefetcher.prefetch(coreValidRequest);
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Invalid core valid prefetch hint", e);
         }
     }
 
     private void runCoreValidRequest(final CoreValidRequest coreValidRequest) {
+        runCoreValidRequest(coreValidRequest, () -> coreValidHandler.handleCoreValidRequest(coreValidRequest));
+    }
+
+    private void runCoreValidRequest(final CoreValidRequest coreValidRequest, final Supplier<String> requestHandling) {
+        LOGGER.info("Core valid request received: {}", coreValidRequest);
+        try {
+            requestAdmissionGuard.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while waiting for admission of core valid request", e);
+            updateTaskStatus(coreValidRequest.getId(), coreValidRequest.getTimestamp(), TaskStatus.ERROR);
+            return;
+        }
         try {
-            LOGGER.info("Core valid request received: {}", coreValidRequest);
             streamBridge.send(TASK_STATUS_UPDATE, new TaskStatusUpdate(UUID.fromString(coreValidRequest.getId()), TaskStatus.RUNNING));
-            final String coreValidResponseId = coreValidHandler.handleCoreValidRequest(coreValidRequest);
+            final String coreValidResponseId = requestHandling.get();
             updateTaskStatus(coreValidResponseId, coreValidRequest.getTimestamp(), TaskStatus.SUCCESS);
         } catch (final AbstractCoreValidException e) {
             LOGGER.error("Core valid exception occurred", e);
@@ -71,6 +167,8 @@ public class CoreValidListener {
         } catch (final RuntimeException e) {
             LOGGER.error("Unknown exception occurred", e);
             updateTaskStatus(coreValidRequest.getId(), coreValidRequest.getTimestamp(), TaskStatus.ERROR);
+        } finally {
+            requestAdmissionGuard.release();
         }
     }
 
@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app;
+
+/**
+ * Failure of a study point whose RAO is not dispatched because the deadline of the request is reached.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class DeadlineReachedException extends RuntimeException {
+
+    DeadlineReachedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Propagates the logging context of the calling thread (e.g. the gridcapa task id)
+ * to tasks executed on another thread.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+public final class MdcContext {
+
+    private MdcContext() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        final Map<String, String> callerContext = MDC.getCopyOfContextMap();
+        return () -> {
+            final Map<String, String> previousContext = MDC.getCopyOfContextMap();
+            setContext(callerContext);
+            try {
+                return supplier.get();
+            } finally {
+                setContext(previousContext);
+            }
+        };
+    }
+
+    public static Runnable wrap(Runnable runnable) {
+        final Supplier<Void> supplier = wrap(() -> {
+            runnable.run();
+            return null;
+        });
+        return supplier::get;
+    }
+
+    public static <T, R> Function<T, R> wrap(Function<T, R> function) {
+        final Map<String, String> callerContext = MDC.getCopyOfContextMap();
+        return input -> {
+            final Map<String, String> previousContext = MDC.getCopyOfContextMap();
+            setContext(callerContext);
+            try {
+                return function.apply(input);
+            } finally {
+                setContext(previousContext);
+            }
+        };
+    }
+
+    private static void setContext(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Steps of a request declared with their dependencies. Each step is started as soon as all its dependencies
+ * are done, on the CPU or I/O executor, so that independent steps run in parallel.
+ * A failed step makes all the steps depending on it fail with the same cause.
+ * <p>
+ * Inline steps are run on the calling thread, for long steps which would otherwise hold an executor thread
+ * while waiting for other computations.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+public class PipelineGraph {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelineGraph.class);
+
+    private final String formattedTimestamp;
+    private final ExecutorService cpuExecutor;
+    private final ExecutorService ioExecutor;
+    private final long pipelineStart;
+    private final List<NodeTiming> timings = Collections.synchronizedList(new ArrayList<>());
+
+    public PipelineGraph(String formattedTimestamp, ExecutorService cpuExecutor, ExecutorService ioExecutor) {
+        this.formattedTimestamp = formattedTimestamp;
+        this.cpuExecutor = cpuExecutor;
+        this.ioExecutor = ioExecutor;
+        this.pipelineStart = System.currentTimeMillis();
+    }
+
+    public <T> Node<T> cpu(String name, Supplier<T> step, Node<?>... dependencies) {
+        return schedule(name, step, cpuExecutor, dependencies);
+    }
+
+    public <T> Node<T> io(String name, Supplier<T> step, Node<?>... dependencies) {
+        return schedule(name, step, ioExecutor, dependencies);
+    }
+
+    public Node<Void> ioAction(String name, Runnable step, Node<?>... dependencies) {
+        return schedule(name, () -> {
+            step.run();
+            return null;
+        }, ioExecutor, dependencies);
+    }
+
+    /**
+     * Waits for the dependencies, then runs the step on the calling thread.
+     */
+    public <T> T inline(String name, InlineStep<T> step, Node<?>... dependencies) throws InterruptedException, ExecutionException {
+        awaitAll(dependencies);
+        long start = System.currentTimeMillis();
+        try {
+            return step.run();
+        } finally {
+            timings.add(new NodeTiming(name, start, System.currentTimeMillis()));
+        }
+    }
+
+    public void awaitAll(Node<?>... nodes) throws InterruptedException, ExecutionException {
+        for (Node<?> node : nodes) {
+            node.get();
+        }
+    }
+
+    /**
+     * Waits for the nodes, cancelling the ones not finished yet as soon as one of them fails, so that sibling steps
+     * not started yet are never run. Steps already running are not interrupted.
+     *
+     * @throws ExecutionException with the cause of the first failure
+     */
+    public void awaitAllOrCancel(Node<?>... nodes) throws InterruptedException, ExecutionException {
+        CompletableFuture<?>[] futures = Arrays.stream(nodes).map(Node::future).toArray(CompletableFuture[]::new);
+        CompletableFuture<Void> firstFailureOrAll = new CompletableFuture<>();
+        for (CompletableFuture<?> future : futures) {
+            future.whenComplete((result, exception) -> {
+                if (exception != null && firstFailureOrAll.completeExceptionally(exception)) {
+                    Arrays.stream(futures).forEach(sibling -> sibling.cancel(false));
+                }
+            });
+        }
+        CompletableFuture.allOf(futures).thenRun(() -> firstFailureOrAll.complete(null));
+        firstFailureOrAll.get();
+    }
+
+    /**
+     * Logs the duration of each finished step, and when it started relatively to the pipeline start.
+     */
+    public void logTimings() {
+        List<NodeTiming> finishedNodes;
+        synchronized (timings) {
+            finishedNodes = new ArrayList<>(timings);
+        }
+        finishedNodes.forEach(timing -> LOGGER.info("Pipeline step {} took {} ms, started at +{} ms for timestamp {}",
+                timing.name(), timing.end() - timing.start(), timing.start() - pipelineStart, formattedTimestamp));
+    }
+
+    List<NodeTiming> getTimings() {
+        synchronized (timings) {
+            return List.copyOf(timings);
+        }
+    }
+
+    private <T> Node<T> schedule(String name, Supplier<T> step, ExecutorService executor, Node<?>... dependencies) {
+        CompletableFuture<?>[] dependencyFutures = Arrays.stream(dependencies).map(Node::future).toArray(CompletableFuture[]::new);
+        Supplier<T> timedStep = MdcContext.wrap(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                return step.get();
+            } finally {
+                timings.add(new NodeTiming(name, start, System.currentTimeMillis()));
+            }
+        });
+        return new Node<>(name, CompletableFuture.allOf(dependencyFutures).thenApplyAsync(ignored -> timedStep.get(), executor));
+    }
+
+    /**
+     * @param future completed with the result of the step
+     */
+    public record Node<T>(String name, CompletableFuture<T> future) {
+
+        public T get() throws InterruptedException, ExecutionException {
+            return future.get();
+        }
+
+        /**
+         * Result of a dependency, to be called only from steps depending on this node.
+         */
+        public T result() {
+            return future.join();
+        }
+    }
+
+    @FunctionalInterface
+    public interface InlineStep<T> {
+        T run() throws InterruptedException, ExecutionException;
+    }
+
+    record NodeTiming(String name, long start, long end) {
+    }
+}
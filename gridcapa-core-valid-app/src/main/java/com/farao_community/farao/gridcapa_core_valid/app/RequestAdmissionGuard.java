@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delays the start of a new request while the available heap memory is below the configured threshold,
+ * or while the configured number of requests are already running. Timestamps of batch requests are admitted
+ * like single requests, so that both share the same limits.
+ * A request is always admitted when no other request is running, so that a pod never blocks itself.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class RequestAdmissionGuard {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestAdmissionGuard.class);
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private final long minAvailableMemory;
+    private final long admissionCheckInterval;
+    private final int maxRunningRequests;
+    private int runningRequests;
+
+    public RequestAdmissionGuard(@Value("${core-valid-runner.requests.admission-min-free-memory-mb:0}") long minAvailableMemoryMb,
+                                 @Value("${core-valid-runner.requests.admission-check-interval:5000}") long admissionCheckInterval,
+                                 @Value("${core-valid-runner.requests.concurrency:1}") int maxRunningRequests) {
+        this.minAvailableMemory = minAvailableMemoryMb * BYTES_PER_MB;
+        this.admissionCheckInterval = admissionCheckInterval;
+        this.maxRunningRequests = Math.max(1, maxRunningRequests);
+    }
+
+    public synchronized void acquire() throws InterruptedException {
+        while (runningRequests >= maxRunningRequests || runningRequests > 0 && getAvailableMemory() < minAvailableMemory) {
+            if (runningRequests < maxRunningRequests) {
+                LOGGER.info("Waiting for memory to start a new request: {} MB available, {} MB required, {} request(s) running",
+                        getAvailableMemory() / BYTES_PER_MB, minAvailableMemory / BYTES_PER_MB, runningRequests);
+            }
+            wait(admissionCheckInterval);
+        }
+        runningRequests++;
+    }
+
+    public synchronized void release() {
+        runningRequests--;
+        notifyAll();
+    }
+
+    public synchronized int getRunningRequests() {
+        return runningRequests;
+    }
+
+    long getAvailableMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Configuration
+public class ExecutorsConfiguration {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService shiftExecutor(@Value("${core-valid-runner.study-points.shift-workers:1}") int shiftWorkers) {
+        return Executors.newFixedThreadPool(Math.max(1, shiftWorkers), Thread.ofPlatform().name("shift-worker-", 0).factory());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService postTreatmentExecutor(@Value("${core-valid-runner.study-points.post-treatment-workers:2}") int postTreatmentWorkers) {
+        return Executors.newFixedThreadPool(Math.max(1, postTreatmentWorkers), Thread.ofPlatform().name("post-treatment-worker-", 0).factory());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService batchExecutor(@Value("${core-valid-runner.batch.concurrency:2}") int batchConcurrency) {
+        return Executors.newFixedThreadPool(Math.max(1, batchConcurrency), Thread.ofPlatform().name("batch-timestamp-", 0).factory());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService pipelineCpuExecutor(@Value("${core-valid-runner.pipeline.cpu-workers:2}") int cpuWorkers) {
+        return Executors.newFixedThreadPool(Math.max(1, cpuWorkers), Thread.ofPlatform().name("pipeline-cpu-", 0).factory());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService pipelineIoExecutor(@Value("${core-valid-runner.pipeline.io-workers:4}") int ioWorkers) {
+        return Executors.newFixedThreadPool(Math.max(1, ioWorkers), Thread.ofPlatform().name("pipeline-io-", 0).factory());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService prefetchExecutor() {
+        // A single prefetch at a time, a new hint replacing the one still waiting
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                Thread.ofPlatform().name("inputs-prefetch-", 0).priority(Thread.MIN_PRIORITY).factory(),
+                new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor praConversionExecutor(@Value("${core-valid-runner.pra-conversion.workers:1}") int workers,
+                                                    @Value("${core-valid-runner.pra-conversion.queue-capacity:100}") int queueCapacity) {
+        // Conversions submitted to a full queue are rejected, the stage defers them without blocking the requests
+        return new ThreadPoolExecutor(Math.max(1, workers), Math.max(1, workers), 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofPlatform().name("pra-conversion-", 0).priority(Thread.MIN_PRIORITY).factory());
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService artifactsJanitorExecutor(@Value("${core-valid-runner.artifacts-janitor.workers:4}") int workers) {
+        return Executors.newScheduledThreadPool(Math.max(1, workers), Thread.ofPlatform().name("artifacts-janitor-", 0).factory());
+    }
+}
@@ -48,28 +48,34 @@ public class LimitingBranchResultService {
     }
 
     public List<LimitingBranchResult> importRaoResult(StudyPoint studyPoint, FbConstraintCreationContext cracCreationContext, String raoResultUrl) {
-        String verticeId = studyPoint.getVerticeId();
-        try (InputStream raoResultStream = urlValidationService.openUrlStream(raoResultUrl)) {
+        return getLimitingBranchResults(studyPoint, cracCreationContext, importRaoResult(cracCreationContext, raoResultUrl));
+    }
 
-            RaoResult raoResult = new RaoResultJsonImporter().importData(raoResultStream, cracCreationContext.getCrac());
-            List<LimitingBranchResult> listLimitingBranches = new ArrayList<>();
-            cracCreationContext.getBranchCnecCreationContexts().forEach(branchCnecCreationContext -> {
-                if (branchCnecCreationContext.isImported()) {
-                    String criticalBranchId = branchCnecCreationContext.getNativeObjectId();
-                    Map<String, String> flowCnecsIds = branchCnecCreationContext.getCreatedCnecsIds();
-                    flowCnecsIds.forEach((instant, flowCnecId) -> {
-                        FlowCnec cnec = cracCreationContext.getCrac().getFlowCnec(flowCnecId);
-                        LimitingBranchResult branchResult = createLimitingBranchResult(verticeId, criticalBranchId, raoResult, cnec);
-                        listLimitingBranches.add(branchResult);
-                    });
-                }
-            });
-            return listLimitingBranches;
+    public RaoResult importRaoResult(FbConstraintCreationContext cracCreationContext, String raoResultUrl) {
+        try (InputStream raoResultStream = urlValidationService.openUrlStream(raoResultUrl)) {
+            return new RaoResultJsonImporter().importData(raoResultStream, cracCreationContext.getCrac());
         } catch (IOException e) {
             throw new CoreValidInvalidDataException(String.format("Cannot import RaoResult file from URL '%s'", raoResultUrl), e);
         }
     }
 
+    public List<LimitingBranchResult> getLimitingBranchResults(StudyPoint studyPoint, FbConstraintCreationContext cracCreationContext, RaoResult raoResult) {
+        String verticeId = studyPoint.getVerticeId();
+        List<LimitingBranchResult> listLimitingBranches = new ArrayList<>();
+        cracCreationContext.getBranchCnecCreationContexts().forEach(branchCnecCreationContext -> {
+            if (branchCnecCreationContext.isImported()) {
+                String criticalBranchId = branchCnecCreationContext.getNativeObjectId();
+                Map<String, String> flowCnecsIds = branchCnecCreationContext.getCreatedCnecsIds();
+                flowCnecsIds.forEach((instant, flowCnecId) -> {
+                    FlowCnec cnec = cracCreationContext.getCrac().getFlowCnec(flowCnecId);
+                    LimitingBranchResult branchResult = createLimitingBranchResult(verticeId, criticalBranchId, raoResult, cnec);
+                    listLimitingBranches.add(branchResult);
+                });
+            }
+        });
+        return listLimitingBranches;
+    }
+
     private LimitingBranchResult createLimitingBranchResult(String studyPointId, String criticalBranchId, RaoResult raoResult, FlowCnec cnec) {
         Double ramBefore = raoResult.getMargin(null, cnec, Unit.MEGAWATT);
         Double ramAfter = raoResult.getMargin(cnec.getState().getInstant(), cnec, Unit.MEGAWATT);
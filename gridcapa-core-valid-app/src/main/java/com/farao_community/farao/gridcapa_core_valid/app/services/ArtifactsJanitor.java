@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.gridcapa_core_valid.app.MdcContext;
+import com.farao_community.farao.minio_adapter.starter.MinioAdapter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes the artifacts of automatic runs in the background, so that the requests do not wait for it.
+ * Artifacts are deleted by batches of multi-object delete calls, run in parallel.
+ * <p>
+ * Each run registers its cleanup when it starts, and the registration is removed once its artifacts are deleted.
+ * Registrations older than the configured age are left by runs which crashed, whose cleanup failed,
+ * or which kept their artifacts for a rerun of their failed study points: their artifacts are swept periodically.
+ * Shared artifacts have their registration renewed while they are used, and are swept the same way once unused.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class ArtifactsJanitor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactsJanitor.class);
+    private static final String ARTIFACTS_PATH = "artifacts/";
+    private static final String CLEANUPS_PATH = "artifacts/cleanups/";
+
+    private final MinioAdapter minioAdapter;
+    private final UrlValidationService urlValidationService;
+    private final ScheduledExecutorService executor;
+    private final int batchSize;
+    private final Duration orphanMinAge;
+    private final long sweepIntervalMinutes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ArtifactsJanitor(MinioAdapter minioAdapter,
+                            UrlValidationService urlValidationService,
+                            @Qualifier("artifactsJanitorExecutor") ScheduledExecutorService executor,
+                            @Value("${core-valid-runner.artifacts-janitor.batch-size:1000}") int batchSize,
+                            @Value("${core-valid-runner.artifacts-janitor.orphan-min-age-hours:24}") long orphanMinAgeHours,
+                            @Value("${core-valid-runner.artifacts-janitor.sweep-interval-minutes:360}") long sweepIntervalMinutes) {
+        this.minioAdapter = minioAdapter;
+        this.urlValidationService = urlValidationService;
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.orphanMinAge = Duration.ofHours(orphanMinAgeHours);
+        this.sweepIntervalMinutes = sweepIntervalMinutes;
+    }
+
+    /**
+     * Records that the artifacts with this prefix have to be deleted, so that they are swept if the run crashes.
+     */
+    public void registerCleanup(String prefix) {
+        try {
+            byte[] cleanup = objectMapper.writeValueAsBytes(new Cleanup(prefix, Instant.now().toEpochMilli()));
+            minioAdapter.uploadArtifact(getCleanupPath(prefix), new ByteArrayInputStream(cleanup));
+        } catch (IOException | RuntimeException e) {
+            // Only the sweep of the artifacts if the run crashes is lost
+            LOGGER.warn("Cannot register cleanup of artifacts {}", prefix, e);
+        }
+    }
+
+    /**
+     * Artifacts shared by several runs, such as content-addressed CRACs and RAO parameters, are registered for cleanup
+     * each time they are used: they are swept once no run has used them for the orphan age.
+     */
+    public void renewRetention(String artifactPath) {
+        registerCleanup(artifactPath.startsWith(ARTIFACTS_PATH) ? artifactPath.substring(ARTIFACTS_PATH.length()) : artifactPath);
+    }
+
+    /**
+     * Deletes the artifacts with this prefix in the background.
+     */
+    public void cleanUp(String prefix) {
+        try {
+            executor.execute(MdcContext.wrap(() -> deleteArtifacts(prefix)));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Cleanup of artifacts {} not started before shutdown, they will be swept later", prefix);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleOrphansSweep() {
+        if (sweepIntervalMinutes > 0) {
+            executor.scheduleWithFixedDelay(MdcContext.wrap(this::sweepOrphans), 0, sweepIntervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    void sweepOrphans() {
+        try {
+            Instant orphanLimit = Instant.now().minus(orphanMinAge);
+            for (String cleanupPath : minioAdapter.listFiles(CLEANUPS_PATH)) {
+                Cleanup cleanup = readCleanup(cleanupPath);
+                if (cleanup == null) {
+                    minioAdapter.deleteFiles(List.of(cleanupPath));
+                } else if (Instant.ofEpochMilli(cleanup.registeredAt()).isBefore(orphanLimit)) {
+                    LOGGER.info("Sweeping artifacts {} left by a previous run", cleanup.prefix());
+                    deleteArtifacts(cleanup.prefix());
+                }
+            }
+        } catch (RuntimeException e) {
+            // Never stops the periodic sweep
+            LOGGER.warn("Sweep of orphan artifacts failed", e);
+        }
+    }
+
+    void deleteArtifacts(String prefix) {
+        List<String> artifacts;
+        try {
+            artifacts = minioAdapter.listFiles(ARTIFACTS_PATH + prefix);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cannot list artifacts {}, they will be swept later", prefix, e);
+            return;
+        }
+        List<CompletableFuture<Void>> deletions = new ArrayList<>();
+        for (int start = 0; start < artifacts.size(); start += batchSize) {
+            List<String> batch = artifacts.subList(start, Math.min(start + batchSize, artifacts.size()));
+            deletions.add(CompletableFuture.runAsync(MdcContext.wrap(() -> minioAdapter.deleteFiles(batch)), executor));
+        }
+        CompletableFuture.allOf(deletions.toArray(new CompletableFuture[0])).whenComplete((result, exception) -> {
+            if (exception != null) {
+                LOGGER.warn("Some artifacts {} cannot be deleted, they will be swept later", prefix, exception);
+                return;
+            }
+            LOGGER.info("{} artifacts {} deleted", artifacts.size(), prefix);
+            try {
+                minioAdapter.deleteFiles(List.of(getCleanupPath(prefix)));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Cannot remove cleanup registration of artifacts {}", prefix, e);
+            }
+        });
+    }
+
+    private Cleanup readCleanup(String cleanupPath) {
+        try (InputStream cleanupStream = urlValidationService.openUrlStream(minioAdapter.generatePreSignedUrl(cleanupPath))) {
+            return objectMapper.readValue(cleanupStream, Cleanup.class);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cleanup registration {} cannot be read, it is dropped", cleanupPath, e);
+            return null;
+        }
+    }
+
+    private static String getCleanupPath(String prefix) {
+        return CLEANUPS_PATH + prefix + ".json";
+    }
+
+    record Cleanup(String prefix, long registeredAt) {
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInternalException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * SHA-256 of the given file content, prefixed by its name.
+     */
+    public static String of(String filename, byte[] content) {
+        MessageDigest digest = getDigest();
+        digest.update(String.valueOf(filename).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest(content));
+    }
+
+    public static String of(byte[] content) {
+        return HexFormat.of().formatHex(getDigest().digest(content));
+    }
+
+    private static MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new CoreValidInternalException("SHA-256 algorithm not available", e);
+        }
+    }
+}
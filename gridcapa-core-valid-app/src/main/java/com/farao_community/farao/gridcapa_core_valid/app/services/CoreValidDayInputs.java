@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidFileResource;
+import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
+import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPoint;
+import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointsImporter;
+import com.powsybl.glsk.api.GlskDocument;
+import com.powsybl.glsk.commons.ZonalData;
+import com.powsybl.iidm.modification.scalable.Scalable;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.openrao.data.crac.io.fbconstraint.FbConstraintCreationContext;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Day files (CBCORA, GLSK, reference program and study points) shared by all the timestamps of a business day.
+ * Files which do not depend on the timestamp are downloaded and parsed only once, on first use,
+ * so that several timestamps processed with the same instance do not download nor parse them again.
+ * The CBCORA file is only kept downloaded, the CRAC being created for each timestamp and network.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+public class CoreValidDayInputs {
+    private final FileImporter fileImporter;
+    private final CoreValidFileResource cbcora;
+    private final CoreValidFileResource glsk;
+    private final CoreValidFileResource refProg;
+    private final CoreValidFileResource studyPoints;
+    private GlskDocument glskDocument;
+    private DailyReferenceProgram dailyReferenceProgram;
+    private byte[] cbcoraContent;
+    private Map<Integer, List<StudyPoint>> studyPointsByPeriod;
+
+    public CoreValidDayInputs(FileImporter fileImporter, CoreValidFileResource cbcora, CoreValidFileResource glsk, CoreValidFileResource refProg, CoreValidFileResource studyPoints) {
+        this.fileImporter = fileImporter;
+        this.cbcora = cbcora;
+        this.glsk = glsk;
+        this.refProg = refProg;
+        this.studyPoints = studyPoints;
+    }
+
+    public static CoreValidDayInputs of(FileImporter fileImporter, CoreValidRequest coreValidRequest) {
+        return new CoreValidDayInputs(fileImporter, coreValidRequest.getCbcora(), coreValidRequest.getGlsk(), coreValidRequest.getRefProg(), coreValidRequest.getStudyPoints());
+    }
+
+    public synchronized GlskDocument getGlskDocument() {
+        if (glskDocument == null) {
+            glskDocument = fileImporter.importGlskFile(glsk);
+        }
+        return glskDocument;
+    }
+
+    public ZonalData<Scalable> getZonalScalable(OffsetDateTime timestamp, Network network) {
+        return fileImporter.getZonalScalable(getGlskDocument(), network, timestamp.toInstant());
+    }
+
+    /**
+     * @return new study point instances for the period of the timestamp, so that results of several runs never mix.
+     */
+    public List<StudyPoint> getStudyPoints(OffsetDateTime timestamp) {
+        return getStudyPointsByPeriod().getOrDefault(StudyPointsImporter.getPeriod(timestamp), List.of()).stream()
+                .map(studyPoint -> new StudyPoint(studyPoint.getPeriod(), studyPoint.getVerticeId(), studyPoint.getPositions()))
+                .toList();
+    }
+
+    /**
+     * @return read-only Core reference net positions at the timestamp
+     */
+    public Map<String, Double> getCoreNetPositions(OffsetDateTime timestamp) {
+        return fileImporter.getCoreNetPositions(getDailyReferenceProgram(), timestamp);
+    }
+
+    public FbConstraintCreationContext getCracCreationContext(OffsetDateTime timestamp, Network network) {
+        return fileImporter.importCrac(cbcora.getUrl(), getCbcoraContent(), timestamp, network);
+    }
+
+    private synchronized DailyReferenceProgram getDailyReferenceProgram() {
+        if (dailyReferenceProgram == null) {
+            dailyReferenceProgram = fileImporter.importDailyReferenceProgram(refProg);
+        }
+        return dailyReferenceProgram;
+    }
+
+    private synchronized byte[] getCbcoraContent() {
+        if (cbcoraContent == null) {
+            cbcoraContent = fileImporter.importCbcoraContent(cbcora.getUrl());
+        }
+        return cbcoraContent;
+    }
+
+    private synchronized Map<Integer, List<StudyPoint>> getStudyPointsByPeriod() {
+        if (studyPointsByPeriod == null) {
+            studyPointsByPeriod = fileImporter.importStudyPointsByPeriod(studyPoints);
+        }
+        return studyPointsByPeriod;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.powsybl.openrao.data.crac.io.fbconstraint.FbConstraintCreationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.function.Supplier;
+
+/**
+ * Cache of CRAC creation contexts, keyed by CBCORA content, target timestamp and CGM content.
+ * Created CRACs are only read afterwards, so a cached context is shared by all the requests using it.
+ * The size of an entry is estimated by the size of its CBCORA file.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class CracCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CracCache.class);
+
+    private final SizeBoundedCache<CracKey, FbConstraintCreationContext> cracCreationContexts;
+
+    public CracCache(@Value("${core-valid-runner.crac-cache.max-size-mb:256}") long maxSizeMb) {
+        this.cracCreationContexts = new SizeBoundedCache<>(maxSizeMb * 1024 * 1024);
+    }
+
+    /**
+     * @param networkKey content key of the network the CRAC is created on, the CRAC is not cached when null
+     */
+    public FbConstraintCreationContext getCracCreationContext(byte[] cbcoraContent, OffsetDateTime timestamp, String networkKey, Supplier<FbConstraintCreationContext> cracImport) {
+        if (networkKey == null || !cracCreationContexts.isEnabled()) {
+            return cracImport.get();
+        }
+        CracKey key = new CracKey(ContentHash.of(cbcoraContent), timestamp.toInstant().toEpochMilli(), networkKey);
+        FbConstraintCreationContext cracCreationContext = cracCreationContexts.get(key);
+        if (cracCreationContext != null) {
+            LOGGER.info("CRAC creation context for timestamp {} found in cache", timestamp);
+            return cracCreationContext;
+        }
+        cracCreationContext = cracImport.get();
+        cracCreationContexts.put(key, cracCreationContext, cbcoraContent.length);
+        return cracCreationContext;
+    }
+
+    long getSize() {
+        return cracCreationContexts.getSize();
+    }
+
+    private record CracKey(String cbcoraKey, long timestamp, String networkKey) {
+    }
+}
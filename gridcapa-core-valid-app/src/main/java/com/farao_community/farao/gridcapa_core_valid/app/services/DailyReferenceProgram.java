@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInvalidDataException;
+import com.powsybl.openrao.commons.EICode;
+import com.powsybl.openrao.data.refprog.referenceprogram.ReferenceExchangeData;
+import com.powsybl.openrao.data.refprog.referenceprogram.ReferenceProgram;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exchanges of a F110 reference program for its whole publication interval, parsed in a single pass,
+ * from which the reference program of each timestamp of the business day is derived.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+public final class DailyReferenceProgram {
+    private final Instant start;
+    private final Instant end;
+    private final List<ExchangeTimeSeries> exchanges;
+
+    private DailyReferenceProgram(Instant start, Instant end, List<ExchangeTimeSeries> exchanges) {
+        this.start = start;
+        this.end = end;
+        this.exchanges = exchanges;
+    }
+
+    public static DailyReferenceProgram importDailyRefProg(InputStream refProgStream) {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(refProgStream);
+            try {
+                return new Parser().parse(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | DateTimeParseException | IllegalArgumentException e) {
+            throw new CoreValidInvalidDataException("Cannot import reference program", e);
+        }
+    }
+
+    /**
+     * @return reference program of the timestamp, each exchange without quantity at the timestamp having a null flow
+     */
+    public ReferenceProgram getReferenceProgram(OffsetDateTime timestamp) {
+        Instant instant = timestamp.toInstant();
+        if (instant.isBefore(start) || !instant.isBefore(end)) {
+            throw new CoreValidInvalidDataException(String.format("Reference program does not cover timestamp %s", timestamp));
+        }
+        List<ReferenceExchangeData> exchangeDataList = exchanges.stream()
+                .map(exchange -> new ReferenceExchangeData(new EICode(exchange.areaOut()), new EICode(exchange.areaIn()), exchange.getFlow(instant)))
+                .toList();
+        return new ReferenceProgram(exchangeDataList);
+    }
+
+    private static Instant[] parseInterval(String interval) {
+        String[] bounds = interval.split("/");
+        if (bounds.length != 2) {
+            throw new IllegalArgumentException(String.format("Invalid time interval '%s'", interval));
+        }
+        return new Instant[] {OffsetDateTime.parse(bounds[0]).toInstant(), OffsetDateTime.parse(bounds[1]).toInstant()};
+    }
+
+    private record ExchangeTimeSeries(String areaOut, String areaIn, List<Period> periods) {
+        double getFlow(Instant instant) {
+            return periods.stream()
+                    .filter(period -> !instant.isBefore(period.start()) && instant.isBefore(period.end()))
+                    .findFirst()
+                    .map(period -> period.getQuantity(instant))
+                    .orElse(0.);
+        }
+    }
+
+    private record Period(Instant start, Instant end, Duration resolution, Map<Integer, Double> quantities) {
+        double getQuantity(Instant instant) {
+            // Positions start at 1 for the first resolution step of the period
+            int position = (int) (Duration.between(start, instant).toSeconds() / resolution.toSeconds()) + 1;
+            return quantities.getOrDefault(position, 0.);
+        }
+    }
+
+    private static final class Parser {
+        private Instant[] publicationInterval;
+        private final List<ExchangeTimeSeries> exchanges = new ArrayList<>();
+        private String areaIn;
+        private String areaOut;
+        private List<Period> periods;
+        private Instant[] periodInterval;
+        private Duration resolution;
+        private Map<Integer, Double> quantities;
+        private int position;
+
+        DailyReferenceProgram parse(XMLStreamReader reader) throws XMLStreamException {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    onStartElement(reader.getLocalName(), reader.getAttributeValue(null, "v"));
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    onEndElement(reader.getLocalName());
+                }
+            }
+            if (publicationInterval == null) {
+                throw new IllegalArgumentException("Missing publication time interval");
+            }
+            return new DailyReferenceProgram(publicationInterval[0], publicationInterval[1], List.copyOf(exchanges));
+        }
+
+        private void onStartElement(String name, String value) {
+            switch (name) {
+                case "PublicationTimeInterval" -> publicationInterval = parseInterval(value);
+                case "PublicationTimeSeries" -> periods = new ArrayList<>();
+                case "InArea" -> areaIn = value;
+                case "OutArea" -> areaOut = value;
+                case "Period" -> quantities = new HashMap<>();
+                case "TimeInterval" -> periodInterval = parseInterval(value);
+                case "Resolution" -> resolution = Duration.parse(value);
+                case "Pos" -> position = Integer.parseInt(value);
+                case "Qty" -> quantities.put(position, Double.parseDouble(value));
+                default -> {
+                    // Other elements do not impact exchanges
+                }
+            }
+        }
+
+        private void onEndElement(String name) {
+            if ("Period".equals(name)) {
+                periods.add(new Period(periodInterval[0], periodInterval[1], resolution, Map.copyOf(quantities)));
+            } else if ("PublicationTimeSeries".equals(name)) {
+                exchanges.add(new ExchangeTimeSeries(areaOut, areaIn, List.copyOf(periods)));
+            }
+        }
+    }
+}
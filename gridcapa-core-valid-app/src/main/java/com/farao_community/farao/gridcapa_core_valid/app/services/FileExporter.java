@@ -8,6 +8,7 @@ package com.farao_community.farao.gridcapa_core_valid.app.services;
 
 import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInternalException;
 import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
+import com.farao_community.farao.gridcapa_core_valid.app.MdcContext;
 import com.farao_community.farao.gridcapa_core_valid.app.services.results_export.MainResultFileExporter;
 import com.farao_community.farao.gridcapa_core_valid.app.services.results_export.RemedialActionsFileExporter;
 import com.farao_community.farao.gridcapa_core_valid.app.services.results_export.RexResultFileExporter;
@@ -22,16 +23,32 @@ import com.powsybl.openrao.raoapi.json.JsonRaoParameters;
 import com.powsybl.openrao.raoapi.parameters.RaoParameters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * @author Alexandre Montigny {@literal <alexandre.montigny at rte-france.com>}
@@ -42,45 +59,119 @@ public class FileExporter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FileExporter.class);
     public static final String ARTIFACTS_S = "artifacts/%s";
-    private static final String RAO_PARAMETERS_FILE_NAME = "raoParameters.json";
+    private static final String RAO_PARAMETERS_FILE_NAME = "raoParameters_%s.json";
+    private static final String JSON_CRAC_FILE_NAME = "crac_%s_%s.json";
+    private static final int SHIFTED_CGM_PIPE_SIZE = 1024 * 1024;
+    // Bound for the writer to stop once the pipe is closed, its serialization being done or failing
+    private static final Duration SHIFTED_CGM_WRITER_TIMEOUT = Duration.ofMinutes(1);
+    private static final Executor SHIFTED_CGM_WRITERS = runnable -> Thread.ofVirtual().name("shifted-cgm-writer").start(runnable);
 
     private final MinioAdapter minioAdapter;
     private final MainResultFileExporter mainResultFileExporter;
     private final RemedialActionsFileExporter remedialActionsFileExporter;
     private final RexResultFileExporter rexResultFileExporter;
+    private final Duration preSignedUrlReuse;
+    private final NetworkArtifactFormat shiftedCgmFormat;
+    private final ArtifactsJanitor artifactsJanitor;
+    private final Map<String, PreSignedUrl> preSignedUrls = new ConcurrentHashMap<>();
+    // CRACs are compared by identity, cached CRACs being shared by all the requests using them
+    private final Map<Crac, String> jsonCracPaths = Collections.synchronizedMap(new WeakHashMap<>());
 
-    public FileExporter(MinioAdapter minioAdapter, MainResultFileExporter mainResultFileExporter, RemedialActionsFileExporter remedialActionsFileExporter, RexResultFileExporter rexResultFileExporter) {
+    public FileExporter(MinioAdapter minioAdapter,
+                        MainResultFileExporter mainResultFileExporter,
+                        RemedialActionsFileExporter remedialActionsFileExporter,
+                        RexResultFileExporter rexResultFileExporter,
+                        ArtifactsJanitor artifactsJanitor,
+                        @Value("${core-valid-runner.artifacts.pre-signed-url-reuse-minutes:60}") long preSignedUrlReuseMinutes,
+                        @Value("${core-valid-runner.artifacts.shifted-cgm-format:XIIDM}") NetworkArtifactFormat shiftedCgmFormat) {
         this.minioAdapter = minioAdapter;
         this.mainResultFileExporter = mainResultFileExporter;
         this.remedialActionsFileExporter = remedialActionsFileExporter;
         this.rexResultFileExporter = rexResultFileExporter;
+        this.preSignedUrlReuse = Duration.ofMinutes(preSignedUrlReuseMinutes);
+        this.shiftedCgmFormat = shiftedCgmFormat;
+        this.artifactsJanitor = artifactsJanitor;
     }
 
     //region Export of Results
-    public void exportStudyPointResult(List<StudyPointResult> studyPointResults, CoreValidRequest coreValidRequest, FbConstraintCreationContext cracCreationContext) {
-        if (coreValidRequest.getLaunchedAutomatically()) {
-            mainResultFileExporter.exportStudyPointResult(studyPointResults, coreValidRequest.getTimestamp());
-        }
+    public void exportMainResult(List<StudyPointResult> studyPointResults, CoreValidRequest coreValidRequest) {
+        mainResultFileExporter.exportStudyPointResult(studyPointResults, coreValidRequest.getTimestamp());
+    }
+
+    public void exportRexResult(List<StudyPointResult> studyPointResults, CoreValidRequest coreValidRequest) {
         rexResultFileExporter.exportStudyPointResult(studyPointResults, coreValidRequest.getTimestamp());
+    }
+
+    public void exportRemedialActions(List<StudyPointResult> studyPointResults, CoreValidRequest coreValidRequest, FbConstraintCreationContext cracCreationContext) {
         remedialActionsFileExporter.exportStudyPointResult(studyPointResults, coreValidRequest.getTimestamp(), cracCreationContext);
     }
     //endregion
 
     //region Shifted CGM uploading on minIO
+    /**
+     * The network is serialized in the configured format while it is uploaded, through a pipe,
+     * so that the serialized network is never held in memory. The writer is stopped if the upload ends without reading the whole network.
+     */
     public String saveShiftedCgm(Network network, StudyPoint studyPoint) {
-        String fileName = network.getNameOrId() + "_" + studyPoint.getVerticeId() + ".xiidm";
+        String fileName = network.getNameOrId() + "_" + studyPoint.getVerticeId() + "." + shiftedCgmFormat.getExtension();
         String networkPath = String.format(ARTIFACTS_S, fileName);
-        MemDataSource memDataSource = new MemDataSource();
-        NetworkHandler.removeAlegroVirtualGeneratorsFromNetwork(network);
-        network.write("XIIDM", new Properties(), memDataSource);
-        try (InputStream is = memDataSource.newInputStream("", "xiidm")) {
-            LOGGER.info("Uploading shifted cgm to {}", networkPath);
-            minioAdapter.uploadArtifact(networkPath, is);
-        } catch (IOException e) {
+        try (PipedInputStream is = new PipedInputStream(SHIFTED_CGM_PIPE_SIZE)) {
+            PipedOutputStream os = new PipedOutputStream(is);
+            CompletableFuture<Void> serialization = CompletableFuture.runAsync(MdcContext.wrap(() -> writeNetwork(network, os)), SHIFTED_CGM_WRITERS);
+            try {
+                LOGGER.info("Uploading shifted cgm to {}", networkPath);
+                minioAdapter.uploadArtifact(networkPath, new SerializedStream(is, serialization));
+            } finally {
+                // A writer blocked on a full pipe fails once the pipe is closed, if the upload did not read the whole network
+                is.close();
+            }
+            serialization.orTimeout(SHIFTED_CGM_WRITER_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS).join();
+        } catch (IOException | CompletionException e) {
             throw new CoreValidInternalException("Error while trying to save shifted network", e);
         }
         return minioAdapter.generatePreSignedUrl(networkPath);
     }
+
+    private void writeNetwork(Network network, OutputStream os) {
+        try (os) {
+            shiftedCgmFormat.write(network, os);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Fails at the end of the stream if the serialization failed, so that a truncated network is never uploaded successfully.
+     */
+    private static final class SerializedStream extends FilterInputStream {
+        private final CompletableFuture<Void> serialization;
+
+        private SerializedStream(InputStream in, CompletableFuture<Void> serialization) {
+            super(in);
+            this.serialization = serialization;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return checkEndOfStream(super.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return checkEndOfStream(super.read(b, off, len));
+        }
+
+        private int checkEndOfStream(int read) throws IOException {
+            if (read == -1) {
+                try {
+                    serialization.join();
+                } catch (CompletionException e) {
+                    throw new IOException("Shifted network serialization failed", e.getCause());
+                }
+            }
+            return read;
+        }
+    }
     //endregion
 
     //region Shifted CGM with Pra uploading on minIO
@@ -102,33 +193,89 @@ public class FileExporter {
     public String saveRaoParametersAndGetUrl(RaoParameters raoParameters) {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         JsonRaoParameters.write(raoParameters, baos);
-        String raoParametersDestinationPath = String.format(ARTIFACTS_S, RAO_PARAMETERS_FILE_NAME);
-        ByteArrayInputStream inStream = new ByteArrayInputStream(baos.toByteArray());
-        minioAdapter.uploadArtifact(raoParametersDestinationPath, inStream);
-        return minioAdapter.generatePreSignedUrl(raoParametersDestinationPath);
+        byte[] raoParametersContent = baos.toByteArray();
+        String raoParametersDestinationPath = String.format(ARTIFACTS_S, String.format(RAO_PARAMETERS_FILE_NAME, ContentHash.of(raoParametersContent)));
+        uploadIfAbsent(raoParametersDestinationPath, () -> raoParametersContent);
+        return getPreSignedUrl(raoParametersDestinationPath);
     }
     //endregion
 
     //region Crac uploading on minIO
+    /**
+     * A CRAC is converted once, its artifact being checked again, and uploaded again if it was removed,
+     * each time its pre-signed URL cannot be reused anymore.
+     */
     public String saveCracInJsonFormat(Crac crac, OffsetDateTime timestamp) {
-        MemDataSource memDataSource = new MemDataSource();
-        String jsonCracFileName = String.format("crac_%s.json", removeIllegalCharacter(timestamp.toString()));
-        try (OutputStream os = memDataSource.newOutputStream(jsonCracFileName, false)) {
-            crac.write("JSON", os);
-        } catch (IOException e) {
-            throw new CoreValidInternalException("Error while trying to save converted CRAC file.", e);
+        String cracPath = jsonCracPaths.get(crac);
+        if (cracPath == null) {
+            byte[] jsonCracContent = writeJsonCrac(crac);
+            String jsonCracFileName = String.format(JSON_CRAC_FILE_NAME, removeIllegalCharacter(timestamp.toString()), ContentHash.of(jsonCracContent));
+            cracPath = String.format(ARTIFACTS_S, jsonCracFileName);
+            uploadIfAbsent(cracPath, () -> jsonCracContent);
+            jsonCracPaths.put(crac, cracPath);
+            return getPreSignedUrl(cracPath);
         }
-        String cracPath = String.format(ARTIFACTS_S, jsonCracFileName);
-        try (InputStream is = memDataSource.newInputStream(jsonCracFileName)) {
-            minioAdapter.uploadArtifact(cracPath, is);
-        } catch (IOException e) {
-            throw new CoreValidInternalException("Error while trying to upload converted CRAC file.", e);
+        String reusableUrl = getReusablePreSignedUrl(cracPath);
+        if (reusableUrl != null) {
+            LOGGER.info("CRAC already converted to {}", cracPath);
+            return reusableUrl;
         }
-        return minioAdapter.generatePreSignedUrl(cracPath);
+        uploadIfAbsent(cracPath, () -> writeJsonCrac(crac));
+        return getPreSignedUrl(cracPath);
+    }
+
+    private static byte[] writeJsonCrac(Crac crac) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        crac.write("JSON", os);
+        return os.toByteArray();
     }
 
     private String removeIllegalCharacter(String url) {
         return url.replace(":", "");
     }
     //endregion
+
+    //region Content-addressed artifacts
+    /**
+     * Artifacts named after their content are uploaded only once, whichever request or pod uploads them first.
+     */
+    private void uploadIfAbsent(String path, Supplier<byte[]> content) {
+        if (minioAdapter.fileExists(path)) {
+            LOGGER.info("Artifact {} already uploaded", path);
+            return;
+        }
+        minioAdapter.uploadArtifact(path, new ByteArrayInputStream(content.get()));
+    }
+
+    /**
+     * Pre-signed URLs of content-addressed artifacts are reused for a duration which must stay well below their validity,
+     * so that RAOs using them still have time to download the artifacts.
+     */
+    private String getPreSignedUrl(String path) {
+        String reusableUrl = getReusablePreSignedUrl(path);
+        if (reusableUrl != null) {
+            return reusableUrl;
+        }
+        Instant now = Instant.now();
+        preSignedUrls.values().removeIf(expiredUrl -> !now.isBefore(expiredUrl.reusableUntil()));
+        String url = minioAdapter.generatePreSignedUrl(path);
+        preSignedUrls.put(path, new PreSignedUrl(url, now.plus(preSignedUrlReuse)));
+        // Shared by all the runs, the artifact is only swept once no run has used it for a while
+        artifactsJanitor.renewRetention(path);
+        return url;
+    }
+
+    private String getReusablePreSignedUrl(String path) {
+        PreSignedUrl preSignedUrl = preSignedUrls.get(path);
+        if (preSignedUrl == null || !Instant.now().isBefore(preSignedUrl.reusableUntil())) {
+            return null;
+        }
+        // Runs reusing the URL still use the artifact, its retention is renewed as when the URL is generated
+        artifactsJanitor.renewRetention(path);
+        return preSignedUrl.url();
+    }
+
+    private record PreSignedUrl(String url, Instant reusableUntil) {
+    }
+    //endregion
 }
@@ -12,25 +12,30 @@ import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPoint;
 import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointsImporter;
 import com.powsybl.glsk.api.GlskDocument;
 import com.powsybl.glsk.api.io.GlskDocumentImporters;
+import com.powsybl.glsk.commons.ZonalData;
+import com.powsybl.iidm.modification.scalable.Scalable;
 import com.powsybl.iidm.network.Network;
 import com.powsybl.openrao.data.crac.api.parameters.CracCreationParameters;
 import com.powsybl.openrao.data.crac.io.fbconstraint.FbConstraintCreationContext;
 import com.powsybl.openrao.data.crac.io.fbconstraint.FbConstraintImporter;
 import com.powsybl.openrao.data.crac.io.fbconstraint.parameters.FbConstraintCracCreationParameters;
 import com.powsybl.openrao.data.refprog.referenceprogram.ReferenceProgram;
-import com.powsybl.openrao.data.refprog.refprogxmlimporter.RefProgImporter;
 import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Ameni Walha {@literal <ameni.walha at rte-france.com>}
@@ -39,15 +44,30 @@ import java.util.List;
 @Service
 public class FileImporter {
     private final UrlValidationService urlValidationService;
+    private final NetworkCache networkCache;
+    private final CracCache cracCache;
+    private final GlskCache glskCache;
+    private final ReferenceProgramCache referenceProgramCache;
+    private final StudyPointsCache studyPointsCache;
     private static final Logger LOGGER = LoggerFactory.getLogger(FileImporter.class);
 
-    public FileImporter(UrlValidationService urlValidationService) {
+    public FileImporter(UrlValidationService urlValidationService, NetworkCache networkCache, CracCache cracCache, GlskCache glskCache, ReferenceProgramCache referenceProgramCache, StudyPointsCache studyPointsCache) {
         this.urlValidationService = urlValidationService;
+        this.networkCache = networkCache;
+        this.cracCache = cracCache;
+        this.glskCache = glskCache;
+        this.referenceProgramCache = referenceProgramCache;
+        this.studyPointsCache = studyPointsCache;
     }
 
     public Network importNetwork(CoreValidFileResource cgmFile) {
-        InputStream networkStream = urlValidationService.openUrlStream(cgmFile.getUrl());
-        return NetworkHandler.loadNetwork(cgmFile.getFilename(), networkStream);
+        byte[] cgmContent;
+        try (InputStream networkStream = urlValidationService.openUrlStream(cgmFile.getUrl())) {
+            cgmContent = networkStream.readAllBytes();
+        } catch (IOException e) {
+            throw new CoreValidInvalidDataException(String.format("Cannot download CGM file from URL '%s'", cgmFile.getUrl()), e);
+        }
+        return networkCache.getNetwork(cgmFile.getFilename(), cgmContent, () -> NetworkHandler.loadNetwork(cgmFile.getFilename(), new ByteArrayInputStream(cgmContent)));
     }
 
     public Network importNetworkFromUrl(String cgmUrl) {
@@ -55,43 +75,98 @@ public class FileImporter {
     }
 
     public GlskDocument importGlskFile(CoreValidFileResource glskFileResource) {
+        byte[] glskContent;
         try (InputStream glskStream = urlValidationService.openUrlStream(glskFileResource.getUrl())) {
-            LOGGER.info("Import of Glsk file {} ", glskFileResource.getFilename());
-            return GlskDocumentImporters.importGlsk(glskStream);
+            glskContent = glskStream.readAllBytes();
         } catch (IOException e) {
             throw new CoreValidInvalidDataException(String.format("Cannot download reference program file from URL '%s'", glskFileResource.getUrl()), e);
         }
+        return glskCache.getGlskDocument(glskContent, () -> {
+            LOGGER.info("Import of Glsk file {} ", glskFileResource.getFilename());
+            return GlskDocumentImporters.importGlsk(new ByteArrayInputStream(glskContent));
+        });
+    }
+
+    public ZonalData<Scalable> getZonalScalable(GlskDocument glskDocument, Network network, Instant instant) {
+        return glskDocument.getZonalScalable(network, instant);
     }
 
     public ReferenceProgram importReferenceProgram(CoreValidFileResource refProgFile, OffsetDateTime timestamp) {
+        return importDailyReferenceProgram(refProgFile).getReferenceProgram(timestamp);
+    }
+
+    public DailyReferenceProgram importDailyReferenceProgram(CoreValidFileResource refProgFile) {
+        byte[] refProgContent;
         try (InputStream refProgStream = urlValidationService.openUrlStream(refProgFile.getUrl())) {
-            return RefProgImporter.importRefProg(refProgStream, timestamp);
+            refProgContent = refProgStream.readAllBytes();
         } catch (IOException e) {
-            throw new CoreValidInvalidDataException(String.format("Cannot download GLSK file from URL '%s'", refProgFile.getUrl()), e);
+            throw new CoreValidInvalidDataException(String.format("Cannot download reference program file from URL '%s'", refProgFile.getUrl()), e);
         }
+        return referenceProgramCache.getDailyReferenceProgram(refProgContent, () -> {
+            LOGGER.info("Import of reference program file {}", refProgFile.getFilename());
+            return DailyReferenceProgram.importDailyRefProg(new ByteArrayInputStream(refProgContent));
+        });
+    }
+
+    /**
+     * @return read-only Core net positions of the reference program at the timestamp
+     */
+    public Map<String, Double> importCoreNetPositions(CoreValidFileResource refProgFile, OffsetDateTime timestamp) {
+        return getCoreNetPositions(importDailyReferenceProgram(refProgFile), timestamp);
+    }
+
+    /**
+     * @return read-only Core net positions of the daily reference program at the timestamp
+     */
+    public Map<String, Double> getCoreNetPositions(DailyReferenceProgram dailyReferenceProgram, OffsetDateTime timestamp) {
+        return Collections.unmodifiableMap(NetPositionsHandler.computeCoreReferenceNetPositions(dailyReferenceProgram.getReferenceProgram(timestamp)));
     }
 
-    public List<StudyPoint> importStudyPoints(CoreValidFileResource studyPointsFileResource, OffsetDateTime timestamp) {
+    /**
+     * @return read-only study points of the file grouped by period, shared with other requests using the same file
+     */
+    public Map<Integer, List<StudyPoint>> importStudyPointsByPeriod(CoreValidFileResource studyPointsFileResource) {
+        byte[] studyPointsContent;
         try (InputStream studyPointsStream = urlValidationService.openUrlStream(studyPointsFileResource.getUrl())) {
-            LOGGER.info("Import of study points from {} file for timestamp {} ", studyPointsFileResource.getFilename(), timestamp);
-            return StudyPointsImporter.importStudyPoints(studyPointsStream, timestamp);
+            studyPointsContent = studyPointsStream.readAllBytes();
         } catch (Exception e) {
             throw new CoreValidInvalidDataException(String.format("Cannot download study points file from URL '%s'", studyPointsFileResource.getUrl()), e);
         }
+        return studyPointsCache.getStudyPointsByPeriod(studyPointsContent, () -> {
+            LOGGER.info("Import of study points from {} file", studyPointsFileResource.getFilename());
+            return StudyPointsImporter.importStudyPointsByPeriod(new ByteArrayInputStream(studyPointsContent));
+        });
     }
 
     public FbConstraintCreationContext importCrac(String cbcoraUrl, OffsetDateTime targetProcessDateTime, Network network) {
-        CracCreationParameters cracCreationParameters = new CracCreationParameters();
-        cracCreationParameters.setDefaultMonitoredLineSide(CracCreationParameters.MonitoredLineSide.MONITOR_LINES_ON_SIDE_ONE);
-        cracCreationParameters.addExtension(FbConstraintCracCreationParameters.class, new FbConstraintCracCreationParameters());
-        cracCreationParameters.getExtension(FbConstraintCracCreationParameters.class).setTimestamp(targetProcessDateTime);
+        return importCrac(cbcoraUrl, importCbcoraContent(cbcoraUrl), targetProcessDateTime, network);
+    }
+
+    public byte[] importCbcoraContent(String cbcoraUrl) {
         try (InputStream cracInputStream = urlValidationService.openUrlStream(cbcoraUrl)) {
-            return (FbConstraintCreationContext) new FbConstraintImporter().importData(cracInputStream, cracCreationParameters, network);
+            return cracInputStream.readAllBytes();
         } catch (Exception e) {
             throw new CoreValidInvalidDataException(String.format("Cannot download cbcora file from URL '%s'", cbcoraUrl), e);
         }
     }
 
+    /**
+     * @param cbcoraContent content of the CBCORA file already downloaded from the URL
+     */
+    public FbConstraintCreationContext importCrac(String cbcoraUrl, byte[] cbcoraContent, OffsetDateTime targetProcessDateTime, Network network) {
+        CracCreationParameters cracCreationParameters = new CracCreationParameters();
+        cracCreationParameters.setDefaultMonitoredLineSide(CracCreationParameters.MonitoredLineSide.MONITOR_LINES_ON_SIDE_ONE);
+        cracCreationParameters.addExtension(FbConstraintCracCreationParameters.class, new FbConstraintCracCreationParameters());
+        cracCreationParameters.getExtension(FbConstraintCracCreationParameters.class).setTimestamp(targetProcessDateTime);
+        return cracCache.getCracCreationContext(cbcoraContent, targetProcessDateTime, networkCache.getContentKey(network), () -> {
+            try {
+                return (FbConstraintCreationContext) new FbConstraintImporter().importData(new ByteArrayInputStream(cbcoraContent), cracCreationParameters, network);
+            } catch (Exception e) {
+                throw new CoreValidInvalidDataException(String.format("Cannot import cbcora file from URL '%s'", cbcoraUrl), e);
+            }
+        });
+    }
+
     String getFilenameFromUrl(String url) {
         try {
             return FilenameUtils.getName(new URI(url).toURL().getPath());
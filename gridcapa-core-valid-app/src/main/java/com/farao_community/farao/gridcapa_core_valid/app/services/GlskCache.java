@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.powsybl.glsk.api.GlskDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Cache of parsed GLSK documents keyed by content hash, one GLSK file covering a whole business day.
+ * Zonal scalables are not cached: scalables keep iteration state while scaling, so each shift needs its own.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class GlskCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GlskCache.class);
+
+    private final SizeBoundedCache<String, GlskDocument> glskDocuments;
+
+    public GlskCache(@Value("${core-valid-runner.glsk-cache.max-size-mb:128}") long maxSizeMb) {
+        this.glskDocuments = new SizeBoundedCache<>(maxSizeMb * 1024 * 1024);
+    }
+
+    public GlskDocument getGlskDocument(byte[] glskContent, Supplier<GlskDocument> glskImport) {
+        String key = ContentHash.of(glskContent);
+        GlskDocument glskDocument = glskDocuments.get(key);
+        if (glskDocument == null) {
+            glskDocument = glskImport.get();
+            glskDocuments.put(key, glskDocument, glskContent.length);
+        } else {
+            LOGGER.info("GLSK document found in cache");
+        }
+        return glskDocument;
+    }
+}
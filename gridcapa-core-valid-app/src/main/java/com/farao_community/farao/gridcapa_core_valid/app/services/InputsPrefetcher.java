@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
+import com.powsybl.iidm.network.Network;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Imports the inputs of an upcoming request in the background, so that its own imports are served by the input caches.
+ * Nothing is kept apart from the caches, whose sizes are already bounded, and a prefetch is skipped or stopped
+ * as soon as the available heap memory goes below the configured minimum.
+ * Prefetches never delay running requests: they are run on their own executor, and failures are only logged.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class InputsPrefetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InputsPrefetcher.class);
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private final FileImporter fileImporter;
+    private final ExecutorService prefetchExecutor;
+    private final boolean prefetchEnabled;
+    private final long minAvailableMemory;
+
+    public InputsPrefetcher(FileImporter fileImporter,
+                            @Qualifier("prefetchExecutor") ExecutorService prefetchExecutor,
+                            @Value("${core-valid-runner.prefetch.enabled:true}") boolean prefetchEnabled,
+                            @Value("${core-valid-runner.prefetch.min-free-memory-mb:2048}") long minAvailableMemoryMb) {
+        this.fileImporter = fileImporter;
+        this.prefetchExecutor = prefetchExecutor;
+        this.prefetchEnabled = prefetchEnabled;
+        this.minAvailableMemory = minAvailableMemoryMb * BYTES_PER_MB;
+    }
+
+    public void prefetch(CoreValidRequest coreValidRequest) {
+        if (!prefetchEnabled) {
+            return;
+        }
+        try {
+            prefetchExecutor.execute(() -> prefetchInputs(coreValidRequest));
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Inputs prefetch for timestamp {} rejected", coreValidRequest.getTimestamp(), e);
+        }
+    }
+
+    void prefetchInputs(CoreValidRequest coreValidRequest) {
+        OffsetDateTime timestamp = coreValidRequest.getTimestamp();
+        try {
+            if (!hasMemoryFor(timestamp)) {
+                return;
+            }
+            LOGGER.info("Prefetching inputs for timestamp {}", timestamp);
+            CoreValidDayInputs dayInputs = CoreValidDayInputs.of(fileImporter, coreValidRequest);
+            dayInputs.getStudyPoints(timestamp);
+            dayInputs.getCoreNetPositions(timestamp);
+            dayInputs.getGlskDocument();
+            Network network = fileImporter.importNetwork(coreValidRequest.getCgm());
+            if (!hasMemoryFor(timestamp)) {
+                return;
+            }
+            dayInputs.getCracCreationContext(timestamp, network);
+            LOGGER.info("Inputs prefetched for timestamp {}", timestamp);
+        } catch (RuntimeException e) {
+            // The request itself will import its inputs again and report the error
+            LOGGER.warn("Inputs prefetch failed for timestamp {}", timestamp, e);
+        }
+    }
+
+    private boolean hasMemoryFor(OffsetDateTime timestamp) {
+        long availableMemory = getAvailableMemory();
+        if (availableMemory < minAvailableMemory) {
+            LOGGER.info("Inputs prefetch for timestamp {} skipped: {} MB available, {} MB required",
+                    timestamp, availableMemory / BYTES_PER_MB, minAvailableMemory / BYTES_PER_MB);
+            return false;
+        }
+        return true;
+    }
+
+    long getAvailableMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    }
+}
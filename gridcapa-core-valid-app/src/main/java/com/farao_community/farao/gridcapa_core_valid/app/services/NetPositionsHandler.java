@@ -48,6 +48,17 @@ public final class NetPositionsHandler {
         return coreNetPositions;
     }
 
+    /**
+     * Total volume shifted on core zones to reach the study point from the reference program, in MW.
+     * ALEGrO set points are not shifts of a zone, so they are not taken into account.
+     */
+    public static double computeShiftVolume(StudyPoint studyPoint, Map<String, Double> coreNetPositions) {
+        return studyPoint.getPositions().entrySet().stream()
+                .filter(position -> CoreAreasId.ID_MAPPING.containsKey(position.getKey()) && !position.getKey().endsWith("_ALEGrO"))
+                .mapToDouble(position -> Math.abs(position.getValue() - coreNetPositions.getOrDefault(CoreAreasId.ID_MAPPING.get(position.getKey()), 0.)))
+                .sum();
+    }
+
     public static void shiftNetPositionToStudyPoint(Network network, StudyPoint studyPoint, ZonalData<Scalable> scalableZonalData, Map<String, Double> coreNetPositions) {
         studyPoint.getPositions().forEach((studyPointZoneId, netPosition) -> {
             try {
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.powsybl.commons.io.TreeDataFormat;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.serde.ExportOptions;
+import com.powsybl.iidm.serde.NetworkSerDe;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formats in which shifted networks can be uploaded. The file extension lets the RAO runner pick the matching importer,
+ * gzip-compressed files being decompressed by powsybl on import.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+public enum NetworkArtifactFormat {
+    XIIDM("xiidm", TreeDataFormat.XML, false),
+    XIIDM_GZIP("xiidm.gz", TreeDataFormat.XML, true),
+    BIIDM("biidm", TreeDataFormat.BIN, false);
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final String extension;
+    private final TreeDataFormat dataFormat;
+    private final boolean compressed;
+
+    NetworkArtifactFormat(String extension, TreeDataFormat dataFormat, boolean compressed) {
+        this.extension = extension;
+        this.dataFormat = dataFormat;
+        this.compressed = compressed;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Writes the network to the stream, which is left open.
+     */
+    public void write(Network network, OutputStream os) throws IOException {
+        ExportOptions options = new ExportOptions().setFormat(dataFormat);
+        if (compressed) {
+            GZIPOutputStream gzipOutputStream = new GZIPOutputStream(os, GZIP_BUFFER_SIZE);
+            NetworkSerDe.write(network, options, gzipOutputStream);
+            gzipOutputStream.finish();
+        } else {
+            NetworkSerDe.write(network, options, os);
+        }
+    }
+}
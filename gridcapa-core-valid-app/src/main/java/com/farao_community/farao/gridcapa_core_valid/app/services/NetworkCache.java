@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.serde.NetworkSerDe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of networks already imported and processed for core, keyed by a hash of the CGM content.
+ * Networks are kept as IIDM snapshots, so that each request gets its own copy without parsing the UCTE file again.
+ * Least recently used snapshots are evicted once the configured size is exceeded.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class NetworkCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NetworkCache.class);
+
+    private final SizeBoundedCache<String, byte[]> snapshots;
+    // Networks are compared by identity, and forgotten once no request uses them anymore
+    private final Map<Network, String> contentKeys = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public NetworkCache(@Value("${core-valid-runner.network-cache.max-size-mb:512}") long maxSizeMb) {
+        this.snapshots = new SizeBoundedCache<>(maxSizeMb * 1024 * 1024);
+    }
+
+    /**
+     * Returns a copy of the network cached for this CGM content, or imports it and caches it.
+     */
+    public Network getNetwork(String filename, byte[] cgmContent, Supplier<Network> networkImport) {
+        String key = ContentHash.of(filename, cgmContent);
+        Network network = importNetwork(filename, key, networkImport);
+        contentKeys.put(network, key);
+        return network;
+    }
+
+    /**
+     * Hash of the CGM content the network was imported from, null if it was not imported through this cache.
+     */
+    public String getContentKey(Network network) {
+        return contentKeys.get(network);
+    }
+
+    long getSize() {
+        return snapshots.getSize();
+    }
+
+    private Network importNetwork(String filename, String key, Supplier<Network> networkImport) {
+        if (!snapshots.isEnabled()) {
+            return networkImport.get();
+        }
+        byte[] snapshot = snapshots.get(key);
+        if (snapshot != null) {
+            LOGGER.info("Network {} found in cache", filename);
+            return NetworkSerDe.read(new ByteArrayInputStream(snapshot));
+        }
+        Network network = networkImport.get();
+        snapshot = takeSnapshot(network);
+        snapshots.put(key, snapshot, snapshot.length);
+        return network;
+    }
+
+    private static byte[] takeSnapshot(Network network) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        NetworkSerDe.write(network, baos);
+        return baos.toByteArray();
+    }
+}
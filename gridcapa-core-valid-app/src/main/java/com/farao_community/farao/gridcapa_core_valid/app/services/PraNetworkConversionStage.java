@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.gridcapa_core_valid.app.MdcContext;
+import com.farao_community.farao.minio_adapter.starter.MinioAdapter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.powsybl.iidm.network.Network;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background stage converting the networks with PRA produced by the RAOs to UCTE artifacts, once the results
+ * of the request are published. These files are only archived, so they are kept out of the request critical path.
+ * <p>
+ * Each conversion is recorded on MinIO until it is done, so that conversions not done before a restart
+ * are done at the next start. Conversions submitted while the queue of the stage is full are deferred, still recorded,
+ * and submitted again as the queued ones are done: requests are never blocked by the stage.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class PraNetworkConversionStage {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PraNetworkConversionStage.class);
+    private static final String CONVERSIONS_PATH = "artifacts/pra-conversions/";
+
+    private final FileImporter fileImporter;
+    private final FileExporter fileExporter;
+    private final MinioAdapter minioAdapter;
+    private final UrlValidationService urlValidationService;
+    private final ThreadPoolExecutor executor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Deque<Runnable> deferredConversions = new ConcurrentLinkedDeque<>();
+    private final Counter failures;
+
+    public PraNetworkConversionStage(FileImporter fileImporter,
+                                     FileExporter fileExporter,
+                                     MinioAdapter minioAdapter,
+                                     UrlValidationService urlValidationService,
+                                     @Qualifier("praConversionExecutor") ThreadPoolExecutor executor,
+                                     MeterRegistry meterRegistry) {
+        this.fileImporter = fileImporter;
+        this.fileExporter = fileExporter;
+        this.minioAdapter = minioAdapter;
+        this.urlValidationService = urlValidationService;
+        this.executor = executor;
+        Gauge.builder("core.valid.pra.conversion.pending", pending, AtomicInteger::get)
+                .description("Number of networks with PRA waiting for or under UCTE conversion, deferred ones included")
+                .register(meterRegistry);
+        Gauge.builder("core.valid.pra.conversion.running", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Number of networks with PRA currently converted to UCTE")
+                .register(meterRegistry);
+        this.failures = Counter.builder("core.valid.pra.conversion.failures")
+                .description("Number of networks with PRA whose UCTE conversion failed")
+                .register(meterRegistry);
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Converts the network with PRA in the background and uploads it under the given artifact file name.
+     */
+    public void submit(String networkWithPraUrl, String fileName) {
+        PraConversion conversion = new PraConversion(networkWithPraUrl, fileName);
+        try {
+            minioAdapter.uploadArtifact(getConversionPath(fileName), new ByteArrayInputStream(objectMapper.writeValueAsBytes(conversion)));
+        } catch (IOException | RuntimeException e) {
+            // Only its recovery after a restart is lost
+            LOGGER.warn("Cannot record conversion of network with PRA {}", fileName, e);
+        }
+        schedule(conversion);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverConversions() {
+        List<String> conversionPaths;
+        try {
+            conversionPaths = minioAdapter.listFiles(CONVERSIONS_PATH);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cannot list conversions of networks with PRA left by a previous run", e);
+            return;
+        }
+        if (!conversionPaths.isEmpty()) {
+            LOGGER.info("Recovering {} conversions of networks with PRA left by a previous run", conversionPaths.size());
+        }
+        conversionPaths.forEach(this::recoverConversion);
+    }
+
+    private void recoverConversion(String conversionPath) {
+        try (InputStream conversionStream = urlValidationService.openUrlStream(minioAdapter.generatePreSignedUrl(conversionPath))) {
+            schedule(objectMapper.readValue(conversionStream, PraConversion.class));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Conversion {} cannot be recovered, it is dropped", conversionPath, e);
+            deleteConversion(conversionPath);
+        }
+    }
+
+    private void schedule(PraConversion conversion) {
+        pending.incrementAndGet();
+        Runnable task = MdcContext.wrap(() -> convert(conversion));
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                // Shutting down: recorded conversions are recovered at next start
+                pending.decrementAndGet();
+                LOGGER.warn("Conversion of network with PRA {} not started before shutdown", conversion.fileName());
+                return;
+            }
+            LOGGER.warn("Conversion queue is full, conversion of network with PRA {} is deferred", conversion.fileName());
+            deferredConversions.addLast(task);
+            // Queued conversions may all be done already, they would not submit it then
+            submitDeferredConversions();
+        }
+    }
+
+    private void submitDeferredConversions() {
+        Runnable task;
+        while ((task = deferredConversions.pollFirst()) != null) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                if (!executor.isShutdown()) {
+                    // Still full: submitted again once a queued conversion is done
+                    deferredConversions.addFirst(task);
+                    return;
+                }
+                // Shutting down: recorded conversions are recovered at next start
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    void convert(PraConversion conversion) {
+        try {
+            Network networkWithPra = fileImporter.importNetworkFromUrl(conversion.networkWithPraUrl());
+            fileExporter.saveShiftedCgmWithPra(networkWithPra, conversion.fileName());
+            deleteConversion(getConversionPath(conversion.fileName()));
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Shutting down: kept to be done again at next start
+                return;
+            }
+            failures.increment();
+            LOGGER.warn("Network with PRA {} cannot be converted to UCTE", conversion.fileName(), e);
+            deleteConversion(getConversionPath(conversion.fileName()));
+        } finally {
+            pending.decrementAndGet();
+            submitDeferredConversions();
+        }
+    }
+
+    private void deleteConversion(String conversionPath) {
+        try {
+            minioAdapter.deleteFiles(List.of(conversionPath));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cannot delete conversion record {}, it will be done again at next start", conversionPath, e);
+        }
+    }
+
+    private static String getConversionPath(String fileName) {
+        return CONVERSIONS_PATH + fileName + ".json";
+    }
+
+    record PraConversion(String networkWithPraUrl, String fileName) {
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Cache of daily reference programs, keyed by a hash of the reference program content.
+ * A reference program file is parsed once for the whole business day, hourly requests deriving their own
+ * reference program from it.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class ReferenceProgramCache {
+
+    private final SizeBoundedCache<String, DailyReferenceProgram> dailyReferencePrograms;
+
+    public ReferenceProgramCache(@Value("${core-valid-runner.refprog-cache.max-days:7}") int maxDays) {
+        // Each entry holds one business day and counts for one in the cache size
+        this.dailyReferencePrograms = new SizeBoundedCache<>(maxDays);
+    }
+
+    public DailyReferenceProgram getDailyReferenceProgram(byte[] refProgContent, Supplier<DailyReferenceProgram> refProgImport) {
+        return dailyReferencePrograms.getOrLoad(ContentHash.of(refProgContent), refProgImport, 1);
+    }
+}
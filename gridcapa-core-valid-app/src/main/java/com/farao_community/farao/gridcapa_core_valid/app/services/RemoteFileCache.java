@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Local disk cache of files downloaded over HTTP, least recently used files being deleted once the configured size is exceeded.
+ * Cached files are always revalidated against the server with their ETag or Last-Modified date, so a modified file is never served.
+ * Files whose response has none of them are not cached.
+ * <p>
+ * Files are keyed by URL without query, so that successive pre-signed URLs of the same object share the same entry.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class RemoteFileCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RemoteFileCache.class);
+
+    private final Path directory;
+    private final long maxSize;
+    private final SizeBoundedCache<String, CachedFile> cachedFiles;
+
+    public RemoteFileCache(@Value("${core-valid-runner.file-cache.directory:${java.io.tmpdir}/core-valid-file-cache}") String directory,
+                           @Value("${core-valid-runner.file-cache.max-size-mb:1024}") long maxSizeMb) {
+        this.directory = Path.of(directory);
+        this.maxSize = maxSizeMb * 1024 * 1024;
+        this.cachedFiles = new SizeBoundedCache<>(maxSize, cachedFile -> deleteQuietly(cachedFile.path()));
+        if (isEnabled()) {
+            // Files left by a previous run are not indexed, so they would never be evicted
+            cleanDirectory();
+        }
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public boolean supports(URL url) {
+        return isEnabled() && ("http".equals(url.getProtocol()) || "https".equals(url.getProtocol()));
+    }
+
+    public InputStream openStream(URL url) throws IOException {
+        String key = getKey(url);
+        CachedFile cachedFile = cachedFiles.get(key);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (cachedFile != null) {
+            if (cachedFile.etag() != null) {
+                connection.setRequestProperty("If-None-Match", cachedFile.etag());
+            }
+            if (cachedFile.lastModified() != null) {
+                connection.setRequestProperty("If-Modified-Since", cachedFile.lastModified());
+            }
+        }
+        if (cachedFile != null && connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            connection.disconnect();
+            try {
+                InputStream cachedStream = Files.newInputStream(cachedFile.path());
+                LOGGER.debug("File {} read from local cache", key);
+                return cachedStream;
+            } catch (NoSuchFileException e) {
+                // Evicted meanwhile: downloaded again without condition
+                return openStream(url, key, (HttpURLConnection) url.openConnection());
+            }
+        }
+        return openStream(url, key, connection);
+    }
+
+    private InputStream openStream(URL url, String key, HttpURLConnection connection) throws IOException {
+        String etag = connection.getHeaderField("ETag");
+        String lastModified = connection.getHeaderField("Last-Modified");
+        InputStream remoteStream = connection.getInputStream();
+        if (etag == null && lastModified == null) {
+            return remoteStream;
+        }
+        Files.createDirectories(directory);
+        Path path = directory.resolve(UUID.randomUUID().toString());
+        long size;
+        try (remoteStream) {
+            size = Files.copy(remoteStream, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(path);
+            throw e;
+        }
+        InputStream cachedStream = Files.newInputStream(path);
+        if (!cachedFiles.put(key, new CachedFile(path, etag, lastModified), size)) {
+            // Too large to be cached, removed once read
+            cachedStream.close();
+            return Files.newInputStream(path, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        LOGGER.debug("File {} downloaded to local cache from {}", key, url.getHost());
+        return cachedStream;
+    }
+
+    long getSize() {
+        return cachedFiles.getSize();
+    }
+
+    private static String getKey(URL url) throws IOException {
+        try {
+            URI uri = url.toURI();
+            return new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), null, null).toString();
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void cleanDirectory() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder())
+                    .filter(path -> !path.equals(directory))
+                    .forEach(RemoteFileCache::deleteQuietly);
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.warn("Local file cache directory {} cannot be cleaned", directory, e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            // Streams already opened on the file can still be read until closed
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("Cached file {} cannot be deleted", path, e);
+        }
+    }
+
+    private record CachedFile(Path path, String etag, String lastModified) {
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Least recently used cache whose entries have a size, evicting entries once their total size exceeds a maximum.
+ * A maximum size of 0 disables the cache.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+public class SizeBoundedCache<K, V> {
+
+    private final long maxSize;
+    private final Consumer<V> onRemoval;
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, CompletableFuture<V>> loads = new HashMap<>();
+    private long size;
+
+    public SizeBoundedCache(long maxSize) {
+        this(maxSize, value -> { });
+    }
+
+    /**
+     * @param onRemoval called under the cache lock with each value evicted or replaced
+     */
+    public SizeBoundedCache(long maxSize, Consumer<V> onRemoval) {
+        this.maxSize = maxSize;
+        this.onRemoval = onRemoval;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null ? entry.value() : null;
+    }
+
+    /**
+     * @return false if the value is too large to be cached
+     */
+    public synchronized boolean put(K key, V value, long valueSize) {
+        if (valueSize > maxSize) {
+            return false;
+        }
+        Entry<V> replaced = entries.put(key, new Entry<>(value, valueSize));
+        if (replaced != null) {
+            size -= replaced.size();
+            onRemoval.accept(replaced.value());
+        }
+        size += valueSize;
+        Iterator<Entry<V>> leastRecentlyUsed = entries.values().iterator();
+        while (size > maxSize && leastRecentlyUsed.hasNext()) {
+            Entry<V> evicted = leastRecentlyUsed.next();
+            size -= evicted.size();
+            leastRecentlyUsed.remove();
+            onRemoval.accept(evicted.value());
+        }
+        return true;
+    }
+
+    /**
+     * Values are loaded outside of the lock, so a slow load never blocks other keys.
+     * Concurrent loads of the same key are done only once, other callers waiting for its value or its error.
+     */
+    public V getOrLoad(K key, Supplier<V> loader, long valueSize) {
+        if (!isEnabled()) {
+            return loader.get();
+        }
+        CompletableFuture<V> load;
+        boolean loadedHere;
+        synchronized (this) {
+            V value = get(key);
+            if (value != null) {
+                return value;
+            }
+            load = loads.get(key);
+            loadedHere = load == null;
+            if (loadedHere) {
+                load = new CompletableFuture<>();
+                loads.put(key, load);
+            }
+        }
+        if (!loadedHere) {
+            // Waited outside of the lock, so that the pending load can store its value
+            return awaitLoad(load);
+        }
+        try {
+            V value = loader.get();
+            put(key, value, valueSize);
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (this) {
+                loads.remove(key);
+            }
+        }
+    }
+
+    private V awaitLoad(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private record Entry<V>(V value, long size) {
+    }
+}
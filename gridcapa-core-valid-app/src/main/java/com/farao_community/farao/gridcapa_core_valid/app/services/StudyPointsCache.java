@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cache of study points files indexed by period, keyed by a hash of the file content.
+ * Cached study points are never handed out directly: callers copy the ones of their period,
+ * so that results of several requests never mix.
+ * The size of an entry is estimated by the size of its study points file.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class StudyPointsCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StudyPointsCache.class);
+
+    private final SizeBoundedCache<String, Map<Integer, List<StudyPoint>>> studyPointsByPeriod;
+
+    public StudyPointsCache(@Value("${core-valid-runner.study-points-cache.max-size-mb:64}") long maxSizeMb) {
+        this.studyPointsByPeriod = new SizeBoundedCache<>(maxSizeMb * 1024 * 1024);
+    }
+
+    public Map<Integer, List<StudyPoint>> getStudyPointsByPeriod(byte[] studyPointsContent, Supplier<Map<Integer, List<StudyPoint>>> studyPointsImport) {
+        if (!studyPointsByPeriod.isEnabled()) {
+            return studyPointsImport.get();
+        }
+        String key = ContentHash.of(studyPointsContent);
+        Map<Integer, List<StudyPoint>> studyPoints = studyPointsByPeriod.get(key);
+        if (studyPoints != null) {
+            LOGGER.info("Study points file found in cache");
+            return studyPoints;
+        }
+        studyPoints = studyPointsImport.get();
+        studyPointsByPeriod.put(key, studyPoints, studyPointsContent.length);
+        return studyPoints;
+    }
+
+    long getSize() {
+        return studyPointsByPeriod.getSize();
+    }
+}
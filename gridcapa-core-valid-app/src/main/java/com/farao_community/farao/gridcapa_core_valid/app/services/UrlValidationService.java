@@ -24,9 +24,11 @@ import java.util.StringJoiner;
 @Component
 public class UrlValidationService {
     private final UrlWhitelistConfiguration urlWhitelistConfiguration;
+    private final RemoteFileCache remoteFileCache;
 
-    public UrlValidationService(UrlWhitelistConfiguration urlWhitelistConfiguration) {
+    public UrlValidationService(UrlWhitelistConfiguration urlWhitelistConfiguration, RemoteFileCache remoteFileCache) {
         this.urlWhitelistConfiguration = urlWhitelistConfiguration;
+        this.remoteFileCache = remoteFileCache;
     }
 
     public InputStream openUrlStream(String urlString) {
@@ -37,7 +39,7 @@ public class UrlValidationService {
         }
         try {
             URL url = new URI(urlString).toURL();
-            return url.openStream();
+            return remoteFileCache.supports(url) ? remoteFileCache.openStream(url) : url.openStream();
         } catch (IOException | URISyntaxException | IllegalArgumentException e) {
             throw new CoreValidInvalidDataException(String.format("Cannot download FileResource file from URL '%s'", urlString), e);
         }
@@ -24,6 +24,7 @@ import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -37,6 +38,7 @@ import java.util.List;
 public class MainResultFileExporter extends AbstractResultFileExporter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MainResultFileExporter.class);
+    private static final String ERROR_STATUS = "ERROR";
     private static final String MAIN_SAMPLE_CSV_FILE = "outputs/%s-ValidationCORE-v[v].csv";
     private static final CSVFormat MAIN_CSV_FORMAT = CSVFormat.EXCEL.builder()
         .setDelimiter(';')
@@ -76,6 +78,9 @@ public class MainResultFileExporter extends AbstractResultFileExporter {
     }
 
     private static List<List<String>> getResultCsvItemsFromStudyPointResult(StudyPointResult studyPointResult) {
+        if (studyPointResult.isInError()) {
+            return List.of(Arrays.asList(studyPointResult.getPeriod(), studyPointResult.getId(), "", ERROR_STATUS, "", ""));
+        }
         return studyPointResult.getListLimitingBranchResult().stream()
             .map(limitingBranchResult -> getMainResultFields(limitingBranchResult, studyPointResult))
             .toList();
@@ -24,6 +24,7 @@ import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -41,6 +42,7 @@ import java.util.Optional;
 public class RexResultFileExporter extends AbstractResultFileExporter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RexResultFileExporter.class);
+    private static final String ERROR_STATUS = "ERROR";
     private static final String REX_SAMPLE_CSV_FILE = "outputs/%s-ValidationCORE-REX-v[v].csv";
     private static final CSVFormat REX_CSV_FORMAT = CSVFormat.EXCEL.builder()
             .setDelimiter(';')
@@ -80,6 +82,9 @@ public class RexResultFileExporter extends AbstractResultFileExporter {
     }
 
     private static List<List<String>> getResultCsvItemsFromStudyPointResult(StudyPointResult studyPointResult) {
+        if (studyPointResult.isInError()) {
+            return List.of(Arrays.asList(studyPointResult.getPeriod(), studyPointResult.getId(), "", "", "", ERROR_STATUS, "", "", "", ""));
+        }
         return studyPointResult.getListLimitingBranchResult().stream()
                 .map(limitingBranchResult -> getRexResultFields(limitingBranchResult, studyPointResult))
                 .toList();
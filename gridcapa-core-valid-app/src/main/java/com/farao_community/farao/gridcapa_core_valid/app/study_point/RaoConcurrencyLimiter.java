@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.study_point;
+
+import com.farao_community.farao.rao_runner.api.resource.AbstractRaoResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of RAO requests simultaneously sent to the shared RAO runners.
+ * <p>
+ * The limit follows an AIMD (additive increase, multiplicative decrease) policy:
+ * it grows by one request per window of successful RAOs answered under the latency threshold,
+ * and is multiplied by the decrease factor when a RAO fails with an exception (e.g. a timeout)
+ * or answers slower than the latency threshold. It never exceeds the configured ceiling.
+ * Requests exceeding the current limit are queued and dispatched as soon as a slot is released.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class RaoConcurrencyLimiter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RaoConcurrencyLimiter.class);
+    private static final int MIN_LIMIT = 1;
+
+    private final int maxLimit;
+    private final long latencyThreshold;
+    private final double decreaseFactor;
+    private final Deque<PendingRao> pendingRaos = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseTime;
+
+    public RaoConcurrencyLimiter(@Value("${core-valid-runner.rao-limiter.max-in-flight:50}") int maxInFlight,
+                                 @Value("${core-valid-runner.rao-limiter.latency-threshold:300000}") long latencyThreshold,
+                                 @Value("${core-valid-runner.rao-limiter.decrease-factor:0.5}") double decreaseFactor,
+                                 MeterRegistry meterRegistry) {
+        this.maxLimit = Math.max(MIN_LIMIT, maxInFlight);
+        this.latencyThreshold = latencyThreshold;
+        this.decreaseFactor = decreaseFactor;
+        this.limit = this.maxLimit;
+        Gauge.builder("core.valid.rao.in.flight", this, RaoConcurrencyLimiter::getInFlight)
+                .description("Number of RAO requests currently computed by RAO runners")
+                .register(meterRegistry);
+        Gauge.builder("core.valid.rao.queued", this, RaoConcurrencyLimiter::getQueued)
+                .description("Number of RAO requests waiting for a free slot")
+                .register(meterRegistry);
+        Gauge.builder("core.valid.rao.limit", this, RaoConcurrencyLimiter::getLimit)
+                .description("Current maximum number of RAO requests in flight")
+                .register(meterRegistry);
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return pendingRaos.size();
+    }
+
+    public synchronized int getLimit() {
+        return Math.max(MIN_LIMIT, (int) limit);
+    }
+
+    /**
+     * Sends the RAO request right away if the current limit allows it, otherwise queues it.
+     * When sent right away, exceptions thrown by the RAO call are propagated to the caller;
+     * when queued, they complete the returned future exceptionally.
+     */
+    public CompletableFuture<AbstractRaoResponse> submit(Supplier<CompletableFuture<AbstractRaoResponse>> raoCall) {
+        synchronized (this) {
+            if (inFlight >= getLimit()) {
+                PendingRao pendingRao = new PendingRao(raoCall, new CompletableFuture<>());
+                pendingRaos.add(pendingRao);
+                LOGGER.info("RAO request queued, {} RAO requests in flight", inFlight);
+                return pendingRao.response();
+            }
+            inFlight++;
+        }
+        return dispatch(raoCall);
+    }
+
+    private CompletableFuture<AbstractRaoResponse> dispatch(Supplier<CompletableFuture<AbstractRaoResponse>> raoCall) {
+        final long dispatchTime = System.currentTimeMillis();
+        final CompletableFuture<AbstractRaoResponse> raoResponse;
+        try {
+            raoResponse = raoCall.get();
+        } catch (RuntimeException e) {
+            onRaoCompleted(dispatchTime, false, false);
+            throw e;
+        }
+        // A RAO failure answered by the runner is a failure as well, it must not raise the limit
+        raoResponse.whenComplete((response, throwable) -> onRaoCompleted(dispatchTime, throwable == null && !response.isRaoFailed(), throwable instanceof CancellationException));
+        return raoResponse;
+    }
+
+    private void onRaoCompleted(long dispatchTime, boolean succeeded, boolean cancelled) {
+        final long completionTime = System.currentTimeMillis();
+        final List<PendingRao> raosToDispatch = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            // A RAO cancelled on our side says nothing about the RAO runners load
+            if (!cancelled) {
+                updateLimit(dispatchTime, completionTime, succeeded);
+            }
+            while (inFlight < getLimit() && !pendingRaos.isEmpty()) {
+                PendingRao pendingRao = pendingRaos.poll();
+                if (!pendingRao.response().isDone()) {
+                    inFlight++;
+                    raosToDispatch.add(pendingRao);
+                }
+            }
+        }
+        raosToDispatch.forEach(this::dispatchPending);
+    }
+
+    private void updateLimit(long dispatchTime, long completionTime, boolean succeeded) {
+        if (succeeded && completionTime - dispatchTime <= latencyThreshold) {
+            limit = Math.min(maxLimit, limit + 1. / limit);
+        } else if (dispatchTime >= lastDecreaseTime) {
+            // Only RAOs sent after the last decrease may decrease the limit again, so that a burst of
+            // RAOs sent under the previous limit does not collapse it
+            limit = Math.max(MIN_LIMIT, limit * decreaseFactor);
+            lastDecreaseTime = completionTime;
+            LOGGER.warn("RAO concurrency limit decreased to {}", getLimit());
+        }
+    }
+
+    private void dispatchPending(PendingRao pendingRao) {
+        if (pendingRao.response().isDone()) {
+            // Cancelled after being dequeued: its slot is released without sending it
+            onRaoCompleted(System.currentTimeMillis(), false, true);
+            return;
+        }
+        try {
+            CompletableFuture<AbstractRaoResponse> dispatchedRao = dispatch(pendingRao.raoCall());
+            // Cancelling the future returned to the caller cancels the RAO, which releases its slot
+            pendingRao.response().whenComplete((response, throwable) -> {
+                if (pendingRao.response().isCancelled()) {
+                    dispatchedRao.cancel(true);
+                }
+            });
+            dispatchedRao.whenComplete((response, throwable) -> {
+                if (throwable == null) {
+                    pendingRao.response().complete(response);
+                } else {
+                    pendingRao.response().completeExceptionally(throwable);
+                }
+            });
+        } catch (RuntimeException e) {
+            pendingRao.response().completeExceptionally(e);
+        }
+    }
+
+    private record PendingRao(Supplier<CompletableFuture<AbstractRaoResponse>> raoCall, CompletableFuture<AbstractRaoResponse> response) {
+    }
+}
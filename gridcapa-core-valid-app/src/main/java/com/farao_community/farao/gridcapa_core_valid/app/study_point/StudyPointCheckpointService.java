@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.study_point;
+
+import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInternalException;
+import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
+import com.farao_community.farao.gridcapa_core_valid.app.limiting_branch.LimitingBranchResult;
+import com.farao_community.farao.gridcapa_core_valid.app.services.ArtifactsJanitor;
+import com.farao_community.farao.gridcapa_core_valid.app.services.UrlValidationService;
+import com.farao_community.farao.minio_adapter.starter.MinioAdapter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.powsybl.contingency.Contingency;
+import com.powsybl.openrao.data.crac.api.Crac;
+import com.powsybl.openrao.data.crac.api.Instant;
+import com.powsybl.openrao.data.crac.api.RemedialAction;
+import com.powsybl.openrao.data.crac.api.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Saves the result of each computed study point on MinIO, so that a rerun of the same
+ * task run only computes the study points that were not finished yet.
+ * <p>
+ * Checkpoints are stored next to the other artifacts of the timestamp, so they are removed
+ * along with them at the end of automatic runs. Manual runs register the cleanup of their own checkpoints,
+ * which are removed at the end of the run. Runs with failed study points keep them until a rerun
+ * cleans them up, or until the artifacts janitor sweeps them.
+ * <p>
+ * Checkpoints store the paths of the study point artifacts rather than their pre-signed URLs,
+ * which may have expired when the checkpoint is restored: new URLs are generated instead.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+@Component
+public class StudyPointCheckpointService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StudyPointCheckpointService.class);
+    private static final DateTimeFormatter ARTIFACTS_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmm");
+    private static final String CHECKPOINTS_PREFIX = "%s_checkpoints/%s/%s";
+    private static final String CHECKPOINT_PATH = "artifacts/%s/%s.json";
+
+    private final MinioAdapter minioAdapter;
+    private final UrlValidationService urlValidationService;
+    private final ArtifactsJanitor artifactsJanitor;
+    private final ObjectMapper objectMapper;
+    private final boolean checkpointsEnabled;
+
+    public StudyPointCheckpointService(MinioAdapter minioAdapter,
+                                       UrlValidationService urlValidationService,
+                                       ArtifactsJanitor artifactsJanitor,
+                                       @Value("${core-valid-runner.study-points.checkpoints-enabled:true}") boolean checkpointsEnabled) {
+        this.minioAdapter = minioAdapter;
+        this.urlValidationService = urlValidationService;
+        this.artifactsJanitor = artifactsJanitor;
+        this.objectMapper = new ObjectMapper();
+        this.checkpointsEnabled = checkpointsEnabled;
+    }
+
+    /**
+     * Fills the result of the study point from its checkpoint, if any.
+     *
+     * @return true if the study point was already computed by a previous attempt of the same run
+     */
+    public boolean restore(CoreValidRequest coreValidRequest, StudyPoint studyPoint, Crac crac) {
+        if (!checkpointsEnabled) {
+            return false;
+        }
+        String checkpointPath = getCheckpointPath(coreValidRequest, studyPoint.getVerticeId());
+        try {
+            if (!minioAdapter.fileExists(checkpointPath)) {
+                return false;
+            }
+            StudyPointCheckpoint checkpoint;
+            try (InputStream checkpointStream = urlValidationService.openUrlStream(minioAdapter.generatePreSignedUrl(checkpointPath))) {
+                checkpoint = objectMapper.readValue(checkpointStream, StudyPointCheckpoint.class);
+            }
+            List<LimitingBranchResult> limitingBranchResults = checkpoint.limitingBranches().stream()
+                    .map(limitingBranch -> limitingBranch.toLimitingBranchResult(checkpoint.verticeId(), crac))
+                    .toList();
+            StudyPointResult result = studyPoint.getStudyPointResult();
+            result.setShiftedCgmUrl(generatePreSignedUrl(checkpoint.shiftedCgmPath()));
+            result.setNetworkWithPraUrl(generatePreSignedUrl(checkpoint.networkWithPraPath()));
+            result.setRaoResultFileUrl(generatePreSignedUrl(checkpoint.raoResultFilePath()));
+            result.setPeriod(checkpoint.period());
+            result.setListLimitingBranchResult(limitingBranchResults);
+            result.setStatus(StudyPointResult.Status.SUCCESS);
+            LOGGER.info("Study point {} restored from checkpoint {}", studyPoint.getVerticeId(), checkpointPath);
+            return true;
+        } catch (Exception e) {
+            // An unreadable checkpoint only costs a new computation of the study point
+            LOGGER.warn("Checkpoint {} cannot be restored, study point {} will be computed again", checkpointPath, studyPoint.getVerticeId(), e);
+            return false;
+        }
+    }
+
+    public void save(CoreValidRequest coreValidRequest, StudyPointResult studyPointResult) {
+        if (!checkpointsEnabled || studyPointResult.getStatus() != StudyPointResult.Status.SUCCESS) {
+            return;
+        }
+        String checkpointPath = getCheckpointPath(coreValidRequest, studyPointResult.getId());
+        try {
+            byte[] checkpoint = objectMapper.writeValueAsBytes(new StudyPointCheckpoint(studyPointResult.getId(),
+                    studyPointResult.getPeriod(),
+                    getArtifactPath(studyPointResult.getShiftedCgmUrl()),
+                    getArtifactPath(studyPointResult.getNetworkWithPraUrl()),
+                    getArtifactPath(studyPointResult.getRaoResultFileUrl()),
+                    studyPointResult.getListLimitingBranchResult().stream().map(LimitingBranchCheckpoint::of).toList()));
+            minioAdapter.uploadArtifact(checkpointPath, new ByteArrayInputStream(checkpoint));
+        } catch (IOException | RuntimeException e) {
+            // The result itself is still valid, only a later rerun will have to compute it again
+            LOGGER.warn("Cannot save checkpoint {} for study point {}", checkpointPath, studyPointResult.getId(), e);
+        }
+    }
+
+    /**
+     * Checkpoints of automatic runs are removed along with the other artifacts of the timestamp,
+     * the cleanup of the checkpoints of manual runs is registered so that they are swept if they are kept.
+     */
+    public void registerCleanup(CoreValidRequest coreValidRequest) {
+        if (checkpointsEnabled && !coreValidRequest.getLaunchedAutomatically()) {
+            artifactsJanitor.registerCleanup(getCheckpointsPrefix(coreValidRequest));
+        }
+    }
+
+    /**
+     * Deletes in the background the checkpoints of a manual run, once none of its study points has to be computed again.
+     */
+    public void cleanUp(CoreValidRequest coreValidRequest) {
+        if (checkpointsEnabled && !coreValidRequest.getLaunchedAutomatically()) {
+            artifactsJanitor.cleanUp(getCheckpointsPrefix(coreValidRequest));
+        }
+    }
+
+    private String generatePreSignedUrl(String artifactPath) {
+        return artifactPath == null ? null : minioAdapter.generatePreSignedUrl(artifactPath);
+    }
+
+    /**
+     * @return path of the artifact relative to the base path, from its pre-signed URL with or without the bucket in its path
+     */
+    private String getArtifactPath(String preSignedUrl) {
+        if (preSignedUrl == null) {
+            return null;
+        }
+        String path = removePrefix(URI.create(preSignedUrl).getPath(), "/" + minioAdapter.getProperties().getBucket());
+        String basePath = minioAdapter.getProperties().getBasePath();
+        if (basePath != null && !basePath.isEmpty()) {
+            path = removePrefix(path, "/" + basePath);
+        }
+        return path.substring(1);
+    }
+
+    private static String removePrefix(String path, String prefix) {
+        return path.startsWith(prefix + "/") ? path.substring(prefix.length()) : path;
+    }
+
+    private static String getCheckpointPath(CoreValidRequest coreValidRequest, String verticeId) {
+        return String.format(CHECKPOINT_PATH, getCheckpointsPrefix(coreValidRequest), verticeId);
+    }
+
+    private static String getCheckpointsPrefix(CoreValidRequest coreValidRequest) {
+        String formattedTimestamp = ARTIFACTS_FORMATTER.format(coreValidRequest.getTimestamp().atZoneSameInstant(ZoneId.of("Europe/Paris")));
+        return String.format(CHECKPOINTS_PREFIX, formattedTimestamp, coreValidRequest.getId(), coreValidRequest.getCurrentRunId());
+    }
+
+    record StudyPointCheckpoint(String verticeId,
+                                String period,
+                                String shiftedCgmPath,
+                                String networkWithPraPath,
+                                String raoResultFilePath,
+                                List<LimitingBranchCheckpoint> limitingBranches) {
+    }
+
+    /**
+     * CRAC objects are referenced by id, and resolved again against the CRAC of the rerun.
+     */
+    record LimitingBranchCheckpoint(String criticalBranchId,
+                                    Double ramBefore,
+                                    Double ramAfter,
+                                    Double flowBefore,
+                                    Double flowAfter,
+                                    Set<String> remedialActionIds,
+                                    String criticalBranchName,
+                                    String contingencyId,
+                                    String instantId) {
+
+        static LimitingBranchCheckpoint of(LimitingBranchResult limitingBranchResult) {
+            State state = limitingBranchResult.state();
+            return new LimitingBranchCheckpoint(limitingBranchResult.criticalBranchId(),
+                    limitingBranchResult.ramBefore(),
+                    limitingBranchResult.ramAfter(),
+                    limitingBranchResult.flowBefore(),
+                    limitingBranchResult.flowAfter(),
+                    limitingBranchResult.remedialActions().stream().map(RemedialAction::getId).collect(Collectors.toSet()),
+                    limitingBranchResult.criticalBranchName(),
+                    state.getContingency().map(Contingency::getId).orElse(null),
+                    state.getInstant().getId());
+        }
+
+        LimitingBranchResult toLimitingBranchResult(String verticeId, Crac crac) {
+            Set<RemedialAction<?>> remedialActions = remedialActionIds.stream()
+                    .map(remedialActionId -> getRemedialAction(crac, remedialActionId))
+                    .collect(Collectors.toSet());
+            return new LimitingBranchResult(verticeId, criticalBranchId, ramBefore, ramAfter, flowBefore, flowAfter, remedialActions, criticalBranchName, getState(crac));
+        }
+
+        private static RemedialAction<?> getRemedialAction(Crac crac, String remedialActionId) {
+            RemedialAction<?> remedialAction = crac.getRemedialAction(remedialActionId);
+            if (remedialAction == null) {
+                throw new CoreValidInternalException(String.format("Remedial action %s of checkpoint not found in CRAC", remedialActionId));
+            }
+            return remedialAction;
+        }
+
+        private State getState(Crac crac) {
+            Instant instant = crac.getInstant(instantId);
+            State state = contingencyId == null ? crac.getPreventiveState() : crac.getState(contingencyId, instant);
+            if (state == null) {
+                throw new CoreValidInternalException(String.format("State of critical branch %s of checkpoint not found in CRAC", criticalBranchId));
+            }
+            return state;
+        }
+    }
+}
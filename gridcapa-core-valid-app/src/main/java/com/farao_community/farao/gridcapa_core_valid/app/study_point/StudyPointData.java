@@ -59,4 +59,8 @@ public class StudyPointData {
     public String getRaoParametersUrl() {
         return raoParametersUrl;
     }
+
+    public StudyPointData withNetwork(Network otherNetwork, ZonalData<Scalable> otherScalableZonalData) {
+        return new StudyPointData(otherNetwork, coreNetPositions, otherScalableZonalData, fbConstraintCreationContext, jsonCracUrl, raoParametersUrl);
+    }
 }
@@ -49,6 +49,10 @@ public class StudyPointResult {
         setStatus(Status.ERROR);
     }
 
+    public boolean isInError() {
+        return status == Status.ERROR;
+    }
+
     public String getShiftedCgmUrl() {
         return shiftedCgmUrl;
     }
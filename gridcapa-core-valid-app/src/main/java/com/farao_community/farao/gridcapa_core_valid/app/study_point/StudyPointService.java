@@ -6,6 +6,7 @@
  */
 package com.farao_community.farao.gridcapa_core_valid.app.study_point;
 
+import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInternalException;
 import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidRaoException;
 import com.farao_community.farao.gridcapa_core_valid.app.CoreAreasId;
 import com.farao_community.farao.gridcapa_core_valid.app.limiting_branch.LimitingBranchResult;
@@ -23,8 +24,13 @@ import com.powsybl.iidm.modification.scalable.Scalable;
 import com.powsybl.iidm.network.Country;
 import com.powsybl.iidm.network.Generator;
 import com.powsybl.iidm.network.Network;
+import com.powsybl.openrao.data.crac.api.Crac;
+import com.powsybl.openrao.data.crac.api.State;
+import com.powsybl.openrao.data.raoresult.api.RaoResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.stereotype.Component;
 
 import java.time.OffsetDateTime;
@@ -45,18 +51,26 @@ public class StudyPointService {
     private static final Logger LOGGER = LoggerFactory.getLogger(StudyPointService.class);
     private static final double DEFAULT_PMAX = 9999.0;
     private static final double DEFAULT_PMIN = -9999.0;
+    private static final String STOP_RAO_BINDING = "stop-rao-out-0";
     private final MinioAdapter minioAdapter;
     private final AsynchronousRaoRunnerClient asynchronousRaoRunnerClient;
     private final LimitingBranchResultService limitingBranchResultService;
     private final FileExporter fileExporter;
+    private final RaoConcurrencyLimiter raoConcurrencyLimiter;
+    private final StreamBridge streamBridge;
     private final Logger eventsLogger;
+    private final boolean keepShiftedVariants;
 
-    public StudyPointService(MinioAdapter minioAdapter, AsynchronousRaoRunnerClient asynchronousRaoRunnerClient, LimitingBranchResultService limitingBranchResultService, FileExporter fileExporter, Logger eventsLogger) {
+    public StudyPointService(MinioAdapter minioAdapter, AsynchronousRaoRunnerClient asynchronousRaoRunnerClient, LimitingBranchResultService limitingBranchResultService, FileExporter fileExporter, RaoConcurrencyLimiter raoConcurrencyLimiter, StreamBridge streamBridge, Logger eventsLogger,
+                             @Value("${core-valid-runner.study-points.apply-pra-locally:false}") boolean keepShiftedVariants) {
         this.minioAdapter = minioAdapter;
         this.asynchronousRaoRunnerClient = asynchronousRaoRunnerClient;
         this.limitingBranchResultService = limitingBranchResultService;
         this.fileExporter = fileExporter;
+        this.raoConcurrencyLimiter = raoConcurrencyLimiter;
+        this.streamBridge = streamBridge;
         this.eventsLogger = eventsLogger;
+        this.keepShiftedVariants = keepShiftedVariants;
     }
 
     public RaoRequest computeStudyPointShift(StudyPoint studyPoint, StudyPointData studyPointData, OffsetDateTime timestamp, String coreValidRequesttId, String coreValidRunId) {
@@ -68,13 +82,13 @@ public class StudyPointService {
         String raoParametersUrl = studyPointData.getRaoParametersUrl();
         RaoRequest raoRequest = null;
         String initialVariant = network.getVariantManager().getWorkingVariantId();
-        String newVariant = initialVariant + "_" + studyPoint.getVerticeId();
-        network.getVariantManager().cloneVariant(initialVariant, newVariant);
+        String newVariant = getShiftedVariantId(initialVariant, studyPoint);
+        // Variant kept by a former attempt of a retried study point is overwritten
+        network.getVariantManager().cloneVariant(initialVariant, newVariant, true);
         network.getVariantManager().setWorkingVariant(newVariant);
+        Map<String, InitGenerator> initGenerators = new HashMap<>();
         try {
-            Map<String, InitGenerator> initGenerators = setPminPmaxToDefaultValue(network, scalableZonalData);
-            NetPositionsHandler.shiftNetPositionToStudyPoint(network, studyPoint, scalableZonalData, coreNetPositions);
-            resetInitialPminPmax(network, scalableZonalData, initGenerators);
+            shiftNetwork(network, studyPoint, scalableZonalData, coreNetPositions, initGenerators);
             String shiftedCgmUrl = fileExporter.saveShiftedCgm(network, studyPoint);
             studyPoint.getStudyPointResult().setShiftedCgmUrl(shiftedCgmUrl);
             String raoDirPath = String.format("%s/artifacts/RAO-%s-%s/", minioAdapter.getProperties().getBasePath(), timestamp.format(DateTimeFormatter.ofPattern("yyyy-MM-dd'_'HH-mm")), studyPoint.getVerticeId());
@@ -91,20 +105,39 @@ public class StudyPointService {
             LOGGER.error("Error during study point {} computation", studyPoint.getVerticeId(), e);
             studyPoint.getStudyPointResult().setStatus(StudyPointResult.Status.ERROR);
         } finally {
+            // Active power limits do not depend on the variant, so that the next shifts would depend on this one otherwise
+            restoreInitialPminPmax(network, initGenerators);
             network.getVariantManager().setWorkingVariant(initialVariant);
-            network.getVariantManager().removeVariant(newVariant);
+            // Shifted variant sent to the RAO is kept for the preventive remedial actions to be applied on it
+            if (!keepShiftedVariants || raoRequest == null) {
+                network.getVariantManager().removeVariant(newVariant);
+            }
         }
         return raoRequest;
     }
 
     public CompletableFuture<AbstractRaoResponse> computeStudyPointRao(StudyPoint studyPoint, RaoRequest raoRequest) {
-        eventsLogger.info("Running RAO for studypoint {} ...", studyPoint.getVerticeId());
+        return raoConcurrencyLimiter.submit(() -> {
+            eventsLogger.info("Running RAO for studypoint {} ...", studyPoint.getVerticeId());
+            try {
+                return asynchronousRaoRunnerClient.runRaoAsynchronously(raoRequest);
+            } catch (Exception e) {
+                String message = String.format("Error during RAO %s: %s", studyPoint.getVerticeId(), e.getMessage());
+                eventsLogger.error(message);
+                throw new CoreValidRaoException(message, e);
+            }
+        });
+    }
+
+    /**
+     * Asks RAO runners to stop the RAOs of the run: all the study points RAOs of a core valid run share its run id.
+     */
+    public void stopStudyPointRaos(String coreValidRunId) {
         try {
-            return asynchronousRaoRunnerClient.runRaoAsynchronously(raoRequest);
-        } catch (Exception e) {
-            String message = String.format("Error during RAO %s: %s", studyPoint.getVerticeId(), e.getMessage());
-            eventsLogger.error(message);
-            throw new CoreValidRaoException(message, e);
+            streamBridge.send(STOP_RAO_BINDING, coreValidRunId);
+            LOGGER.info("Stop requested for RAOs of run {}", coreValidRunId);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cannot request stop of RAOs of run {}", coreValidRunId, e);
         }
     }
 
@@ -114,8 +147,69 @@ public class StudyPointService {
         return studyPoint.getStudyPointResult();
     }
 
-    private Map<String, InitGenerator> setPminPmaxToDefaultValue(Network network, ZonalData<Scalable> scalableZonalData) {
+    public StudyPointResult postTreatRaoResult(StudyPoint studyPoint, StudyPointData studyPointData, RaoSuccessResponse raoResponse, RaoResult raoResult) {
+        List<LimitingBranchResult> limitingBranchResults = limitingBranchResultService.getLimitingBranchResults(studyPoint, studyPointData.getFbConstraintCreationContext(), raoResult);
+        setSuccessResult(studyPoint, raoResponse, limitingBranchResults);
+        return studyPoint.getStudyPointResult();
+    }
+
+    public RaoResult importRaoResult(StudyPointData studyPointData, RaoSuccessResponse raoResponse) {
+        return limitingBranchResultService.importRaoResult(studyPointData.getFbConstraintCreationContext(), raoResponse.getRaoResultFileUrl());
+    }
+
+    /**
+     * Applies the preventive remedial actions activated by the RAO on the shifted variant sent to the RAO,
+     * kept by the shift on the network of the worker, and uploads the result as UCTE,
+     * instead of downloading the network with PRA produced by the RAO runner. The shifted variant is then removed.
+     */
+    public String saveShiftedCgmWithPra(StudyPoint studyPoint, StudyPointData studyPointData, RaoResult raoResult) {
+        Network network = studyPointData.getNetwork();
+        String initialVariant = network.getVariantManager().getWorkingVariantId();
+        String shiftedVariant = getShiftedVariantId(initialVariant, studyPoint);
+        if (!network.getVariantManager().getVariantIds().contains(shiftedVariant)) {
+            throw new CoreValidInternalException(String.format("Shifted network of studypoint %s sent to the RAO is not available", studyPoint.getVerticeId()));
+        }
+        network.getVariantManager().setWorkingVariant(shiftedVariant);
         Map<String, InitGenerator> initGenerators = new HashMap<>();
+        try {
+            // Same active power limits as in the shifted network sent to the RAO
+            setPminPmaxToDefaultValue(network, studyPointData.getScalableZonalData(), initGenerators);
+            resetInitialPminPmax(network, studyPointData.getScalableZonalData(), initGenerators);
+            applyPreventiveRemedialActions(network, studyPointData.getFbConstraintCreationContext().getCrac(), raoResult);
+            String fileName = network.getNameOrId() + "_" + studyPoint.getVerticeId() + "_withPra.uct";
+            return fileExporter.saveShiftedCgmWithPra(network, fileName);
+        } finally {
+            restoreInitialPminPmax(network, initGenerators);
+            network.getVariantManager().setWorkingVariant(initialVariant);
+            network.getVariantManager().removeVariant(shiftedVariant);
+        }
+    }
+
+    /**
+     * @return whether the network holds the shifted variant of the study point, kept until its PRAs are applied
+     */
+    public static boolean hasShiftedVariant(Network network, StudyPoint studyPoint) {
+        return network.getVariantManager().getVariantIds().contains(getShiftedVariantId(network.getVariantManager().getWorkingVariantId(), studyPoint));
+    }
+
+    private static String getShiftedVariantId(String initialVariant, StudyPoint studyPoint) {
+        return initialVariant + "_" + studyPoint.getVerticeId();
+    }
+
+    private void shiftNetwork(Network network, StudyPoint studyPoint, ZonalData<Scalable> scalableZonalData, Map<String, Double> coreNetPositions, Map<String, InitGenerator> initGenerators) {
+        setPminPmaxToDefaultValue(network, scalableZonalData, initGenerators);
+        NetPositionsHandler.shiftNetPositionToStudyPoint(network, studyPoint, scalableZonalData, coreNetPositions);
+        resetInitialPminPmax(network, scalableZonalData, initGenerators);
+    }
+
+    private static void applyPreventiveRemedialActions(Network network, Crac crac, RaoResult raoResult) {
+        State preventiveState = crac.getPreventiveState();
+        raoResult.getActivatedNetworkActionsDuringState(preventiveState).forEach(networkAction -> networkAction.apply(network));
+        raoResult.getActivatedRangeActionsDuringState(preventiveState)
+                .forEach(rangeAction -> rangeAction.apply(network, raoResult.getOptimizedSetPointOnState(preventiveState, rangeAction)));
+    }
+
+    private void setPminPmaxToDefaultValue(Network network, ZonalData<Scalable> scalableZonalData, Map<String, InitGenerator> initGenerators) {
         CoreAreasId.getCountriesId().stream()
                 .map(zone -> new CountryEICode(Country.valueOf(zone)).getCode())
                 .map(scalableZonalData::getData)
@@ -130,12 +224,11 @@ public class StudyPointService {
                     InitGenerator initGenerator = new InitGenerator();
                     initGenerator.setpMin(generator.getMinP());
                     initGenerator.setpMax(generator.getMaxP());
-                    initGenerators.put(generator.getId(), initGenerator);
+                    initGenerators.putIfAbsent(generator.getId(), initGenerator);
                     generator.setMinP(DEFAULT_PMIN);
                     generator.setMaxP(DEFAULT_PMAX);
                 });
         LOGGER.info("Pmax and Pmin are set to default values for network {}", network.getNameOrId());
-        return initGenerators;
     }
 
     private void resetInitialPminPmax(Network network, ZonalData<Scalable> scalableZonalData, Map<String, InitGenerator> initGenerators) {
@@ -157,6 +250,14 @@ public class StudyPointService {
         LOGGER.info("Pmax and Pmin are reset to initial values for network {}", network.getNameOrId());
     }
 
+    private static void restoreInitialPminPmax(Network network, Map<String, InitGenerator> initGenerators) {
+        initGenerators.forEach((generatorId, initGenerator) -> {
+            Generator generator = network.getGenerator(generatorId);
+            generator.setMinP(initGenerator.getpMin());
+            generator.setMaxP(initGenerator.getpMax());
+        });
+    }
+
     private void setSuccessResult(StudyPoint studyPoint, RaoSuccessResponse raoResponse, List<LimitingBranchResult> limitingBranchResults) {
         StudyPointResult result = studyPoint.getStudyPointResult();
         result.setListLimitingBranchResult(limitingBranchResults);
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.study_point;
+
+import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInternalException;
+import com.farao_community.farao.gridcapa_core_valid.app.services.NetworkHandler;
+import com.powsybl.glsk.commons.ZonalData;
+import com.powsybl.iidm.modification.scalable.Scalable;
+import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.serde.NetworkSerDe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Pool of study point data allowing several study points to be shifted at the same time.
+ * Each worker owns its own copy of the network, so that variants and network modifications
+ * done during a shift never leak to a concurrent one. It also owns its own zonal scalables, built against
+ * its copy: scalables keep iteration state while scaling, so they cannot be shared between concurrent shifts.
+ * Copies are lazily created from a snapshot of the network taken before any shift.
+ * <p>
+ * Alegro virtual generators are only needed to build the zonal scalables: they are removed from every worker network
+ * once its scalables are built, before any shift, so that all the study points are shifted and exported the same way
+ * whatever the number of workers.
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+public class StudyPointShiftWorkers {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StudyPointShiftWorkers.class);
+
+    private final int maxWorkers;
+    private final StudyPointData studyPointData;
+    private final byte[] networkSnapshot;
+    private final Function<Network, ZonalData<Scalable>> zonalScalableFactory;
+    // Guarded by this
+    private final List<StudyPointData> idleWorkers = new ArrayList<>();
+    private int createdWorkers = 1;
+
+    public StudyPointShiftWorkers(StudyPointData studyPointData, int maxWorkers, Function<Network, ZonalData<Scalable>> zonalScalableFactory) {
+        this.maxWorkers = Math.max(1, maxWorkers);
+        this.studyPointData = studyPointData;
+        // Taken with the virtual generators, which the zonal scalables of the copies are built from
+        this.networkSnapshot = this.maxWorkers > 1 ? takeNetworkSnapshot(studyPointData.getNetwork()) : null;
+        this.zonalScalableFactory = zonalScalableFactory;
+        NetworkHandler.removeAlegroVirtualGeneratorsFromNetwork(studyPointData.getNetwork());
+        this.idleWorkers.add(studyPointData);
+    }
+
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    public <T> T runWithWorker(Function<StudyPointData, T> task) throws InterruptedException {
+        return runWithWorker(worker -> true, true, task);
+    }
+
+    /**
+     * Runs the task with the worker matching the filter, such as the one holding a variant, waiting for it to be idle.
+     * No worker is created for it.
+     */
+    public <T> T runWithWorker(Predicate<StudyPointData> workerFilter, Function<StudyPointData, T> task) throws InterruptedException {
+        return runWithWorker(workerFilter, false, task);
+    }
+
+    private <T> T runWithWorker(Predicate<StudyPointData> workerFilter, boolean anyWorker, Function<StudyPointData, T> task) throws InterruptedException {
+        StudyPointData worker = acquireWorker(workerFilter, anyWorker);
+        try {
+            return task.apply(worker);
+        } finally {
+            releaseWorker(worker);
+        }
+    }
+
+    private StudyPointData acquireWorker(Predicate<StudyPointData> workerFilter, boolean anyWorker) throws InterruptedException {
+        synchronized (this) {
+            while (true) {
+                Optional<StudyPointData> idleWorker = idleWorkers.stream().filter(workerFilter).findFirst();
+                if (idleWorker.isPresent()) {
+                    idleWorkers.remove(idleWorker.get());
+                    return idleWorker.get();
+                }
+                if (anyWorker && createdWorkers < maxWorkers) {
+                    createdWorkers++;
+                    break;
+                }
+                if (!anyWorker && idleWorkers.size() == createdWorkers) {
+                    throw new CoreValidInternalException("No study point shift worker matches");
+                }
+                wait();
+            }
+        }
+        // Copied outside the lock, so that idle workers can still be used meanwhile
+        try {
+            LOGGER.info("Creating a new network copy for study points shift");
+            Network networkCopy = NetworkSerDe.read(new ByteArrayInputStream(networkSnapshot));
+            ZonalData<Scalable> zonalScalable = zonalScalableFactory.apply(networkCopy);
+            NetworkHandler.removeAlegroVirtualGeneratorsFromNetwork(networkCopy);
+            return studyPointData.withNetwork(networkCopy, zonalScalable);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                createdWorkers--;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    private synchronized void releaseWorker(StudyPointData worker) {
+        idleWorkers.add(worker);
+        notifyAll();
+    }
+
+    private static byte[] takeNetworkSnapshot(Network network) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        NetworkSerDe.write(network, baos);
+        return baos.toByteArray();
+    }
+}
@@ -24,6 +24,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * @author Ameni Walha {@literal <ameni.walha at rte-france.com>}
@@ -41,10 +43,22 @@ public final class StudyPointsImporter {
 
     public static List<StudyPoint> importStudyPoints(InputStream studyPointsStream, OffsetDateTime timestamp) {
         List<StudyPoint> allStudyPoints = StudyPointsImporter.importStudyPoints(studyPointsStream);
-        int period = timestamp.atZoneSameInstant(ZoneId.of("Europe/Paris")).getHour();
+        int period = getPeriod(timestamp);
         return allStudyPoints.stream().filter(studyPoint -> studyPoint.getPeriod() == period).toList();
     }
 
+    /**
+     * @return read-only study points of the file grouped by period, in file order
+     */
+    public static Map<Integer, List<StudyPoint>> importStudyPointsByPeriod(InputStream studyPointsStream) {
+        return importStudyPoints(studyPointsStream).stream()
+                .collect(Collectors.groupingBy(StudyPoint::getPeriod, TreeMap::new, Collectors.toUnmodifiableList()));
+    }
+
+    public static int getPeriod(OffsetDateTime timestamp) {
+        return timestamp.atZoneSameInstant(ZoneId.of("Europe/Paris")).getHour();
+    }
+
     private static List<StudyPoint> importStudyPoints(Reader reader) {
         try {
             List<StudyPoint> studyPoints = new ArrayList<>();
@@ -9,32 +9,50 @@ package com.farao_community.farao.gridcapa_core_valid.app;
 import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidRaoException;
 import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidFileResource;
 import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
+import com.farao_community.farao.gridcapa_core_valid.app.services.ArtifactsJanitor;
 import com.farao_community.farao.gridcapa_core_valid.app.services.FileExporter;
 import com.farao_community.farao.gridcapa_core_valid.app.services.FileImporter;
+import com.farao_community.farao.gridcapa_core_valid.app.services.PraNetworkConversionStage;
 import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPoint;
 import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointData;
 import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointResult;
 import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointService;
+import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointsImporter;
 import com.farao_community.farao.minio_adapter.starter.MinioAdapter;
 import com.farao_community.farao.rao_runner.api.resource.AbstractRaoResponse;
 import com.farao_community.farao.rao_runner.api.resource.RaoFailureResponse;
 import com.farao_community.farao.rao_runner.api.resource.RaoRequest;
 import com.farao_community.farao.rao_runner.api.resource.RaoSuccessResponse;
 import com.powsybl.iidm.network.Network;
+import com.powsybl.openrao.data.crac.io.fbconstraint.FbConstraintCreationContext;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 
 /**
@@ -59,6 +77,12 @@ class CoreValidHandlerTest {
     @MockitoBean
     private FileImporter fileImporter;
 
+    @MockitoBean
+    private PraNetworkConversionStage praNetworkConversionStage;
+
+    @MockitoBean
+    private ArtifactsJanitor artifactsJanitor;
+
     @Test
     void handleCoreValidRequestTest() {
         Mockito.when(minioAdapter.generatePreSignedUrl(Mockito.any())).thenReturn("http://url");
@@ -93,8 +117,178 @@ class CoreValidHandlerTest {
 
         CoreValidRequest request = new CoreValidRequest(requestId, runId, dateTime, networkFile, cbcoraFile, glskFile, refProgFile, studyPointsFile, true);
         coreValidHandler.handleCoreValidRequest(request);
-        Mockito.verify(minioAdapter, Mockito.times(1)).deleteFiles(Mockito.any());
-        Mockito.verify(fileExporter, Mockito.times(1)).exportStudyPointResult(Mockito.any(), Mockito.any(), Mockito.any());
+        Mockito.verify(artifactsJanitor, Mockito.times(1)).registerCleanup("20210723_0030");
+        Mockito.verify(artifactsJanitor, Mockito.times(1)).cleanUp("20210723_0030");
+        Mockito.verify(fileExporter, Mockito.times(1)).exportMainResult(Mockito.any(), Mockito.any());
+        Mockito.verify(fileExporter, Mockito.times(1)).exportRexResult(Mockito.any(), Mockito.any());
+        Mockito.verify(fileExporter, Mockito.times(1)).exportRemedialActions(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void rerunOfPartialAutomaticRunOnlyComputesFailedStudyPoints(@TempDir Path minioDirectory) {
+        ReflectionTestUtils.setField(coreValidHandler, "partialResults", true);
+        try {
+            mockMinioWithDirectory(minioDirectory);
+            OffsetDateTime dateTime = OffsetDateTime.parse("2021-07-22T22:30Z");
+            Mockito.when(fileImporter.importStudyPointsByPeriod(Mockito.any())).thenReturn(Map.of(StudyPointsImporter.getPeriod(dateTime),
+                    List.of(new StudyPoint(0, "0_9", Map.of()), new StudyPoint(0, "0_10", Map.of()))));
+            Mockito.when(fileImporter.importNetwork(Mockito.any())).thenReturn(Mockito.mock(Network.class));
+            Mockito.when(fileImporter.importCrac(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(Mockito.mock(FbConstraintCreationContext.class));
+            Mockito.when(studyPointService.computeStudyPointShift(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.anyString())).thenReturn(Mockito.mock(RaoRequest.class));
+            Mockito.when(studyPointService.postTreatRaoResult(Mockito.any(), Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+                StudyPointResult studyPointResult = invocation.getArgument(0, StudyPoint.class).getStudyPointResult();
+                studyPointResult.setStatus(StudyPointResult.Status.SUCCESS);
+                studyPointResult.setPeriod("0");
+                return studyPointResult;
+            });
+            RaoSuccessResponse raoResponse = new RaoSuccessResponse.Builder().withId("id").build();
+            CoreValidFileResource fileResource = new CoreValidFileResource("file", "file:/file");
+            CoreValidRequest request = new CoreValidRequest("id", "runId", dateTime, fileResource, fileResource, fileResource, fileResource, fileResource, true);
+
+            // First run: RAO of study point 0_10 fails
+            Mockito.when(studyPointService.computeStudyPointRao(Mockito.any(), Mockito.any())).thenAnswer(invocation ->
+                    "0_10".equals(invocation.getArgument(0, StudyPoint.class).getVerticeId())
+                            ? CompletableFuture.failedFuture(new CoreValidRaoException("RAO failure"))
+                            : CompletableFuture.completedFuture(raoResponse));
+            coreValidHandler.handleCoreValidRequest(request);
+
+            Mockito.verify(artifactsJanitor, Mockito.never()).cleanUp(Mockito.anyString());
+            Assertions.assertThat(minioDirectory.resolve("artifacts/20210723_0030_checkpoints/id/runId/0_9.json")).exists();
+
+            // Rerun: study point 0_9 is restored from its checkpoint, only 0_10 is computed again
+            Mockito.clearInvocations(studyPointService);
+            Mockito.when(studyPointService.computeStudyPointRao(Mockito.any(), Mockito.any())).thenReturn(CompletableFuture.completedFuture(raoResponse));
+            coreValidHandler.handleCoreValidRequest(request);
+
+            Mockito.verify(studyPointService, Mockito.times(1)).computeStudyPointShift(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.anyString());
+            Mockito.verify(studyPointService).computeStudyPointShift(Mockito.argThat(studyPoint -> "0_10".equals(studyPoint.getVerticeId())), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.anyString());
+            Mockito.verify(artifactsJanitor).cleanUp("20210723_0030");
+            Assertions.assertThat(minioDirectory.resolve("artifacts/20210723_0030_checkpoints/id/runId/0_9.json")).doesNotExist();
+        } finally {
+            ReflectionTestUtils.setField(coreValidHandler, "partialResults", false);
+        }
+    }
+
+    @Test
+    void failedStudyPointIsRetriedWithinTheSameRun(@TempDir Path minioDirectory) {
+        ReflectionTestUtils.setField(coreValidHandler, "partialResults", true);
+        try {
+            mockMinioWithDirectory(minioDirectory);
+            OffsetDateTime dateTime = OffsetDateTime.parse("2021-07-22T22:30Z");
+            Mockito.when(fileImporter.importStudyPointsByPeriod(Mockito.any())).thenReturn(Map.of(StudyPointsImporter.getPeriod(dateTime),
+                    List.of(new StudyPoint(0, "0_9", Map.of()), new StudyPoint(0, "0_10", Map.of()))));
+            Mockito.when(fileImporter.importNetwork(Mockito.any())).thenReturn(Mockito.mock(Network.class));
+            Mockito.when(fileImporter.importCrac(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(Mockito.mock(FbConstraintCreationContext.class));
+            Mockito.when(studyPointService.computeStudyPointShift(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.anyString())).thenReturn(Mockito.mock(RaoRequest.class));
+            Mockito.when(studyPointService.postTreatRaoResult(Mockito.any(), Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+                StudyPointResult studyPointResult = invocation.getArgument(0, StudyPoint.class).getStudyPointResult();
+                studyPointResult.setStatus(StudyPointResult.Status.SUCCESS);
+                studyPointResult.setPeriod("0");
+                return studyPointResult;
+            });
+            RaoSuccessResponse raoResponse = new RaoSuccessResponse.Builder().withId("id").build();
+            CoreValidFileResource fileResource = new CoreValidFileResource("file", "file:/file");
+            CoreValidRequest request = new CoreValidRequest("id", "runId", dateTime, fileResource, fileResource, fileResource, fileResource, fileResource, true);
+
+            // RAO of study point 0_10 only fails on its first attempt
+            AtomicInteger studyPointAttempts = new AtomicInteger();
+            Mockito.when(studyPointService.computeStudyPointRao(Mockito.any(), Mockito.any())).thenAnswer(invocation ->
+                    "0_10".equals(invocation.getArgument(0, StudyPoint.class).getVerticeId()) && studyPointAttempts.getAndIncrement() == 0
+                            ? CompletableFuture.failedFuture(new CoreValidRaoException("RAO failure"))
+                            : CompletableFuture.completedFuture(raoResponse));
+            coreValidHandler.handleCoreValidRequest(request);
+
+            Mockito.verify(studyPointService, Mockito.times(1)).computeStudyPointShift(Mockito.argThat(studyPoint -> "0_9".equals(studyPoint.getVerticeId())), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.anyString());
+            Mockito.verify(studyPointService, Mockito.times(2)).computeStudyPointShift(Mockito.argThat(studyPoint -> "0_10".equals(studyPoint.getVerticeId())), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.anyString());
+            Mockito.verify(artifactsJanitor).cleanUp("20210723_0030");
+        } finally {
+            ReflectionTestUtils.setField(coreValidHandler, "partialResults", false);
+        }
+    }
+
+    @Test
+    void checkpointsOfSuccessfulManualRunAreCleanedUp(@TempDir Path minioDirectory) {
+        mockMinioWithDirectory(minioDirectory);
+        OffsetDateTime dateTime = OffsetDateTime.parse("2021-07-22T22:30Z");
+        Mockito.when(fileImporter.importStudyPointsByPeriod(Mockito.any())).thenReturn(Map.of(StudyPointsImporter.getPeriod(dateTime),
+                List.of(new StudyPoint(0, "0_9", Map.of()))));
+        Mockito.when(fileImporter.importNetwork(Mockito.any())).thenReturn(Mockito.mock(Network.class));
+        Mockito.when(fileImporter.importCrac(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(Mockito.mock(FbConstraintCreationContext.class));
+        Mockito.when(studyPointService.computeStudyPointShift(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.anyString())).thenReturn(Mockito.mock(RaoRequest.class));
+        Mockito.when(studyPointService.computeStudyPointRao(Mockito.any(), Mockito.any())).thenReturn(CompletableFuture.completedFuture(new RaoSuccessResponse.Builder().withId("id").build()));
+        Mockito.when(studyPointService.postTreatRaoResult(Mockito.any(), Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+            StudyPointResult studyPointResult = invocation.getArgument(0, StudyPoint.class).getStudyPointResult();
+            studyPointResult.setStatus(StudyPointResult.Status.SUCCESS);
+            studyPointResult.setPeriod("0");
+            return studyPointResult;
+        });
+        CoreValidFileResource fileResource = new CoreValidFileResource("file", "file:/file");
+
+        coreValidHandler.handleCoreValidRequest(new CoreValidRequest("id", "runId", dateTime, fileResource, fileResource, fileResource, fileResource, fileResource, false));
+
+        // Manual runs do not register the cleanup of the artifacts of the timestamp, only the one of their checkpoints
+        Mockito.verify(artifactsJanitor).registerCleanup("20210723_0030_checkpoints/id/runId");
+        Mockito.verify(artifactsJanitor).cleanUp("20210723_0030_checkpoints/id/runId");
+        Assertions.assertThat(minioDirectory.resolve("artifacts/20210723_0030_checkpoints/id/runId/0_9.json")).doesNotExist();
+    }
+
+    @Test
+    void raoOfStudyPointIsDispatchedBeforeLaterShiftsFinish() {
+        OffsetDateTime dateTime = OffsetDateTime.parse("2021-07-22T22:30Z");
+        Mockito.when(fileImporter.importStudyPointsByPeriod(Mockito.any())).thenReturn(Map.of(StudyPointsImporter.getPeriod(dateTime),
+                List.of(new StudyPoint(0, "0_9", Map.of()), new StudyPoint(0, "0_10", Map.of()))));
+        Mockito.when(fileImporter.importNetwork(Mockito.any())).thenReturn(Mockito.mock(Network.class));
+        Mockito.when(fileImporter.importCrac(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(Mockito.mock(FbConstraintCreationContext.class));
+        Mockito.when(studyPointService.postTreatRaoResult(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, StudyPoint.class).getStudyPointResult());
+        RaoSuccessResponse raoResponse = new RaoSuccessResponse.Builder().withId("id").build();
+        CompletableFuture<AbstractRaoResponse> firstRao = new CompletableFuture<>();
+        List<String> events = new CopyOnWriteArrayList<>();
+        Mockito.when(studyPointService.computeStudyPointShift(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyString(), Mockito.anyString())).thenAnswer(invocation -> {
+            String verticeId = invocation.getArgument(0, StudyPoint.class).getVerticeId();
+            events.add("shift " + verticeId);
+            if ("0_10".equals(verticeId)) {
+                // RAO of the first study point is still running while the later study point is shifted
+                events.add("first RAO done " + firstRao.isDone());
+                firstRao.complete(raoResponse);
+            }
+            return Mockito.mock(RaoRequest.class);
+        });
+        Mockito.when(studyPointService.computeStudyPointRao(Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+            String verticeId = invocation.getArgument(0, StudyPoint.class).getVerticeId();
+            events.add("rao " + verticeId);
+            return "0_9".equals(verticeId) ? firstRao : CompletableFuture.completedFuture(raoResponse);
+        });
+        CoreValidFileResource fileResource = new CoreValidFileResource("file", "file:/file");
+
+        coreValidHandler.handleCoreValidRequest(new CoreValidRequest("id", "runId", dateTime, fileResource, fileResource, fileResource, fileResource, fileResource, false));
+
+        Assertions.assertThat(events).containsExactly("shift 0_9", "rao 0_9", "shift 0_10", "first RAO done false", "rao 0_10");
+    }
+
+    /**
+     * Artifacts are stored in the directory, the cleanup deleting the ones of its prefix.
+     */
+    private void mockMinioWithDirectory(Path minioDirectory) {
+        Mockito.doAnswer(invocation -> {
+            Path file = minioDirectory.resolve(invocation.getArgument(0, String.class));
+            Files.createDirectories(file.getParent());
+            Files.write(file, invocation.getArgument(1, InputStream.class).readAllBytes());
+            return null;
+        }).when(minioAdapter).uploadArtifact(Mockito.anyString(), Mockito.any(InputStream.class));
+        Mockito.when(minioAdapter.fileExists(Mockito.anyString())).thenAnswer(invocation -> Files.exists(minioDirectory.resolve(invocation.getArgument(0, String.class))));
+        Mockito.when(minioAdapter.generatePreSignedUrl(Mockito.anyString())).thenAnswer(invocation -> minioDirectory.resolve(invocation.getArgument(0, String.class)).toUri().toString());
+        Mockito.doAnswer(invocation -> {
+            String artifactsPrefix = "artifacts/" + invocation.getArgument(0, String.class);
+            try (Stream<Path> files = Files.walk(minioDirectory)) {
+                for (Path file : files.filter(Files::isRegularFile).toList()) {
+                    if (minioDirectory.relativize(file).toString().startsWith(artifactsPrefix)) {
+                        Files.delete(file);
+                    }
+                }
+            }
+            return null;
+        }).when(artifactsJanitor).cleanUp(Mockito.anyString());
     }
 
     private CoreValidFileResource createFileResource(String filename, URL resource) {
@@ -112,10 +306,101 @@ class CoreValidHandlerTest {
         final Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures = Map.of(studyPoint, completableFuture);
 
         Assertions.assertThatExceptionOfType(CoreValidRaoException.class)
-                .isThrownBy(() -> coreValidHandler.fillResultsForEachStudyPoint(studyPointData, studyPointCompletableFutures))
+                .isThrownBy(() -> coreValidHandler.fillResultsForEachStudyPoint(studyPointData, studyPointCompletableFutures, studyPointResult -> { }, null, null))
                 .withMessageContaining("test message");
     }
 
+    @Test
+    void fillResultsForEachStudyPointCancelsOutstandingRaosOnFirstFailure() {
+        final StudyPointData studyPointData = Mockito.mock(StudyPointData.class);
+        final RaoFailureResponse raoFailureResponse = new RaoFailureResponse.Builder()
+                .withErrorMessage("test message")
+                .build();
+        final CompletableFuture<AbstractRaoResponse> outstandingRao = new CompletableFuture<>();
+        final Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures = new LinkedHashMap<>();
+        studyPointCompletableFutures.put(new StudyPoint(1, "a", Map.of()), CompletableFuture.completedFuture(raoFailureResponse));
+        studyPointCompletableFutures.put(new StudyPoint(1, "b", Map.of()), outstandingRao);
+
+        Assertions.assertThatExceptionOfType(CoreValidRaoException.class)
+                .isThrownBy(() -> coreValidHandler.fillResultsForEachStudyPoint(studyPointData, studyPointCompletableFutures, studyPointResult -> { }, null, null))
+                .withMessageContaining("test message");
+        Assertions.assertThat(outstandingRao).isCancelled();
+        Mockito.verify(studyPointService, Mockito.never()).postTreatRaoResult(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void fillResultsForEachStudyPointExportsStudyPointsNotFinishedBeforeDeadlineInError() throws ExecutionException, InterruptedException {
+        final StudyPointData studyPointData = Mockito.mock(StudyPointData.class);
+        final StudyPoint studyPoint = new StudyPoint(1, "a", Map.of());
+        final CompletableFuture<AbstractRaoResponse> outstandingRao = new CompletableFuture<>();
+
+        final List<StudyPointResult> results = coreValidHandler.fillResultsForEachStudyPoint(studyPointData, Map.of(studyPoint, outstandingRao), studyPointResult -> { }, Instant.now(), null);
+
+        Assertions.assertThat(outstandingRao).isCancelled();
+        Assertions.assertThat(results).singleElement().matches(StudyPointResult::isInError);
+        Assertions.assertThat(results.get(0).getPeriod()).isEqualTo("1");
+    }
+
+    @Test
+    void fillResultsForEachStudyPointExportsStudyPointsNotDispatchedBeforeDeadlineInError() throws ExecutionException, InterruptedException {
+        final StudyPointData studyPointData = Mockito.mock(StudyPointData.class);
+        final StudyPoint studyPoint = new StudyPoint(1, "a", Map.of());
+        final CompletableFuture<AbstractRaoResponse> notDispatchedRao = CompletableFuture.failedFuture(new DeadlineReachedException("Deadline reached"));
+
+        final List<StudyPointResult> results = coreValidHandler.fillResultsForEachStudyPoint(studyPointData, Map.of(studyPoint, notDispatchedRao), studyPointResult -> { }, Instant.now().plusSeconds(3600), null);
+
+        Assertions.assertThat(results).singleElement().matches(StudyPointResult::isInError);
+    }
+
+    @Test
+    void fillResultsForEachStudyPointFailsOnRaoTimeoutBeforeDeadline() {
+        final StudyPointData studyPointData = Mockito.mock(StudyPointData.class);
+        final StudyPoint studyPoint = new StudyPoint(1, "a", Map.of());
+        final CompletableFuture<AbstractRaoResponse> timedOutRao = CompletableFuture.failedFuture(new TimeoutException("RAO timeout"));
+        final Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures = Map.of(studyPoint, timedOutRao);
+
+        Assertions.assertThatExceptionOfType(ExecutionException.class)
+                .isThrownBy(() -> coreValidHandler.fillResultsForEachStudyPoint(studyPointData, studyPointCompletableFutures, studyPointResult -> { }, Instant.now().plusSeconds(3600), null))
+                .withRootCauseInstanceOf(TimeoutException.class);
+    }
+
+    @Test
+    void fillResultsForEachStudyPointPostTreatsStudyPointsInRaoCompletionOrder() throws Exception {
+        final StudyPointData studyPointData = Mockito.mock(StudyPointData.class);
+        final StudyPoint firstStudyPoint = new StudyPoint(1, "a", Map.of());
+        final StudyPoint secondStudyPoint = new StudyPoint(1, "b", Map.of());
+        final RaoSuccessResponse raoSuccessResponse = new RaoSuccessResponse.Builder().withId("id").build();
+        final CompletableFuture<AbstractRaoResponse> firstRao = new CompletableFuture<>();
+        final CompletableFuture<AbstractRaoResponse> secondRao = new CompletableFuture<>();
+        final Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures = new LinkedHashMap<>();
+        studyPointCompletableFutures.put(firstStudyPoint, firstRao);
+        studyPointCompletableFutures.put(secondStudyPoint, secondRao);
+        final StudyPointResult firstResult = new StudyPointResult("a");
+        final StudyPointResult secondResult = new StudyPointResult("b");
+        Mockito.when(studyPointService.postTreatRaoResult(firstStudyPoint, studyPointData, raoSuccessResponse)).thenReturn(firstResult);
+        Mockito.when(studyPointService.postTreatRaoResult(secondStudyPoint, studyPointData, raoSuccessResponse)).thenReturn(secondResult);
+        final List<String> postTreatedIds = new CopyOnWriteArrayList<>();
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<List<StudyPointResult>> results = executor.submit(() -> coreValidHandler.fillResultsForEachStudyPoint(studyPointData, studyPointCompletableFutures,
+                    studyPointResult -> postTreatedIds.add(studyPointResult.getId()), null, null));
+
+            // Second study point is post-treated as soon as its RAO is over, while the first RAO is still running
+            secondRao.complete(raoSuccessResponse);
+            Mockito.verify(studyPointService, Mockito.timeout(5000)).postTreatRaoResult(secondStudyPoint, studyPointData, raoSuccessResponse);
+            Mockito.verify(studyPointService, Mockito.never()).postTreatRaoResult(firstStudyPoint, studyPointData, raoSuccessResponse);
+            Assertions.assertThat(results).isNotDone();
+
+            firstRao.complete(raoSuccessResponse);
+            // Results keep the order of the study points whatever the completion order
+            Assertions.assertThat(results.get(5, TimeUnit.SECONDS)).containsExactly(firstResult, secondResult);
+            Assertions.assertThat(postTreatedIds).containsExactly("b", "a");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     void fillResultsForEachStudyPoint() throws ExecutionException, InterruptedException {
         final StudyPointData studyPointData = Mockito.mock(StudyPointData.class);
@@ -127,14 +412,14 @@ class CoreValidHandlerTest {
         final CompletableFuture<AbstractRaoResponse> completableFuture = CompletableFuture.completedFuture(raoSuccessResponse);
         final Map<StudyPoint, CompletableFuture<AbstractRaoResponse>> studyPointCompletableFutures = Map.of(studyPoint, completableFuture);
 
-        final Network network = Mockito.mock(Network.class);
-        Mockito.when(fileImporter.importNetworkFromUrl("networkUrl")).thenReturn(network);
         final StudyPointResult studyPointResult = new StudyPointResult("resultId");
         Mockito.when(studyPointService.postTreatRaoResult(studyPoint, studyPointData, raoSuccessResponse)).thenReturn(studyPointResult);
 
-        final List<StudyPointResult> results = coreValidHandler.fillResultsForEachStudyPoint(studyPointData, studyPointCompletableFutures);
+        final List<StudyPointResult> results = coreValidHandler.fillResultsForEachStudyPoint(studyPointData, studyPointCompletableFutures, studyPointResult -> { }, null, null);
 
-        Mockito.verify(fileExporter, Mockito.times(1)).saveShiftedCgmWithPra(Mockito.eq(network), Mockito.anyString());
+        // Networks with PRA are converted in the background once the results are published
+        Mockito.verify(fileImporter, Mockito.never()).importNetworkFromUrl(Mockito.anyString());
+        Mockito.verify(fileExporter, Mockito.never()).saveShiftedCgmWithPra(Mockito.any(), Mockito.anyString());
         Assertions.assertThat(results).containsExactly(studyPointResult);
     }
 }
@@ -7,25 +7,41 @@
 
 package com.farao_community.farao.gridcapa_core_valid.app;
 
+import com.farao_community.farao.gridcapa.task_manager.api.TaskStatus;
+import com.farao_community.farao.gridcapa.task_manager.api.TaskStatusUpdate;
+import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInvalidDataException;
 import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
+import com.farao_community.farao.gridcapa_core_valid.app.services.CoreValidDayInputs;
+import com.farao_community.farao.gridcapa_core_valid.app.services.InputsPrefetcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.amqp.core.AmqpTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.env.YamlPropertySourceLoader;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  * @author Ameni Walha {@literal <ameni.walha at rte-france.com>}
@@ -33,6 +49,9 @@ import java.nio.file.Paths;
 @SpringBootTest
 @ExtendWith(MockitoExtension.class)
 class CoreValidListenerTest {
+    private static final UUID FIRST_BATCH_TIMESTAMP_ID = UUID.fromString("ea6b2a4d-1b4b-4c2e-9a52-1b4f0ec6e1a0");
+    private static final UUID SECOND_BATCH_TIMESTAMP_ID = UUID.fromString("4c1fd0b5-5d8e-4a0f-8a21-0a3e9f5e7f11");
+
     @MockitoBean
     public CoreValidHandler coreValidHandler;
 
@@ -42,6 +61,9 @@ class CoreValidListenerTest {
     @MockitoBean
     private StreamBridge streamBridge;
 
+    @MockitoBean
+    private InputsPrefetcher inputsPrefetcher;
+
     @Autowired
     private AmqpTemplate amqpTemplate;
 
@@ -75,4 +97,68 @@ class CoreValidListenerTest {
         Mockito.verify(coreValidHandler, Mockito.times(0)).handleCoreValidRequest(Mockito.any(CoreValidRequest.class));
     }
 
+    @Test
+    void checkThatPrefetchHintIsPassedToPrefetcher() throws URISyntaxException, IOException {
+        byte[] hintMessage = Files.readAllBytes(Paths.get(getClass().getResource("/validRequest.json").toURI()));
+        coreValidListener.onPrefetchMessage(hintMessage);
+        Mockito.verify(inputsPrefetcher, Mockito.times(1)).prefetch(Mockito.any(CoreValidRequest.class));
+        Mockito.verify(coreValidHandler, Mockito.never()).handleCoreValidRequest(Mockito.any(CoreValidRequest.class));
+    }
+
+    @Test
+    void checkThatEachTimestampOfBatchIsHandledWithSharedDayInputs() throws URISyntaxException, IOException {
+        byte[] batchMessage = Files.readAllBytes(Paths.get(getClass().getResource("/validBatchRequest.json").toURI()));
+        Mockito.when(coreValidHandler.handleCoreValidRequest(Mockito.any(CoreValidRequest.class), Mockito.any(CoreValidDayInputs.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, CoreValidRequest.class).getId());
+
+        coreValidListener.onBatchMessage(batchMessage);
+
+        ArgumentCaptor<CoreValidDayInputs> dayInputsCaptor = ArgumentCaptor.forClass(CoreValidDayInputs.class);
+        Mockito.verify(coreValidHandler, Mockito.times(2)).handleCoreValidRequest(Mockito.any(CoreValidRequest.class), dayInputsCaptor.capture());
+        assertSame(dayInputsCaptor.getAllValues().get(0), dayInputsCaptor.getAllValues().get(1));
+        assertEquals(Map.of(FIRST_BATCH_TIMESTAMP_ID, List.of(TaskStatus.RUNNING, TaskStatus.SUCCESS),
+                SECOND_BATCH_TIMESTAMP_ID, List.of(TaskStatus.RUNNING, TaskStatus.SUCCESS)), getPublishedTaskStatuses());
+    }
+
+    @Test
+    void checkThatFailedTimestampOfBatchDoesNotFailOtherTimestamps() throws URISyntaxException, IOException {
+        byte[] batchMessage = Files.readAllBytes(Paths.get(getClass().getResource("/validBatchRequest.json").toURI()));
+        Mockito.when(coreValidHandler.handleCoreValidRequest(Mockito.any(CoreValidRequest.class), Mockito.any(CoreValidDayInputs.class))).thenAnswer(invocation -> {
+            CoreValidRequest coreValidRequest = invocation.getArgument(0, CoreValidRequest.class);
+            if (FIRST_BATCH_TIMESTAMP_ID.equals(UUID.fromString(coreValidRequest.getId()))) {
+                throw new CoreValidInvalidDataException("Invalid CGM");
+            }
+            return coreValidRequest.getId();
+        });
+
+        coreValidListener.onBatchMessage(batchMessage);
+
+        assertEquals(Map.of(FIRST_BATCH_TIMESTAMP_ID, List.of(TaskStatus.RUNNING, TaskStatus.ERROR),
+                SECOND_BATCH_TIMESTAMP_ID, List.of(TaskStatus.RUNNING, TaskStatus.SUCCESS)), getPublishedTaskStatuses());
+    }
+
+    @Test
+    void checkThatInvalidBatchMessageIsNotHandled() {
+        coreValidListener.onBatchMessage("not a batch request".getBytes());
+        Mockito.verify(streamBridge, Mockito.never()).send(Mockito.anyString(), Mockito.any());
+        Mockito.verify(coreValidHandler, Mockito.never()).handleCoreValidRequest(Mockito.any(CoreValidRequest.class), Mockito.any(CoreValidDayInputs.class));
+    }
+
+    private Map<UUID, List<TaskStatus>> getPublishedTaskStatuses() {
+        ArgumentCaptor<TaskStatusUpdate> taskStatusUpdateCaptor = ArgumentCaptor.forClass(TaskStatusUpdate.class);
+        Mockito.verify(streamBridge, Mockito.atLeastOnce()).send(Mockito.eq("task-status-update"), taskStatusUpdateCaptor.capture());
+        return taskStatusUpdateCaptor.getAllValues().stream()
+                .collect(Collectors.groupingBy(TaskStatusUpdate::getId, Collectors.mapping(TaskStatusUpdate::getTaskStatus, Collectors.toList())));
+    }
+
+    @Test
+    void batchRequestsAndPrefetchHintsAreBoundInMainConfiguration() throws IOException {
+        // Test configuration overrides the main one, which is the deployed one
+        PropertySource<?> mainConfiguration = new YamlPropertySourceLoader().load("main", new FileSystemResource("src/main/resources/application.yml")).get(0);
+        assertEquals("request;batchRequest;prefetch", mainConfiguration.getProperty("spring.cloud.function.definition"));
+        assertEquals("core-valid-batch-requests", mainConfiguration.getProperty("spring.cloud.stream.bindings.batchRequest-in-0.destination"));
+        assertEquals("core-valid-runner", mainConfiguration.getProperty("spring.cloud.stream.bindings.batchRequest-in-0.group"));
+        assertEquals("core-valid-prefetch-hints", mainConfiguration.getProperty("spring.cloud.stream.bindings.prefetch-in-0.destination"));
+        assertEquals("core-valid-runner", mainConfiguration.getProperty("spring.cloud.stream.bindings.prefetch-in-0.group"));
+    }
 }
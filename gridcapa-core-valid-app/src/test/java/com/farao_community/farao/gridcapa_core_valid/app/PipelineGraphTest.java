@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app;
+
+import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInvalidDataException;
+import com.farao_community.farao.gridcapa_core_valid.app.PipelineGraph.Node;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class PipelineGraphTest {
+
+    private final ExecutorService cpuExecutor = Executors.newFixedThreadPool(2);
+    private final ExecutorService ioExecutor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutdownExecutors() {
+        cpuExecutor.shutdownNow();
+        ioExecutor.shutdownNow();
+    }
+
+    @Test
+    void independentStepsRunInParallelAndDependentStepsAfterThem() throws InterruptedException, ExecutionException {
+        PipelineGraph pipeline = new PipelineGraph("2021-07-23 00:30", cpuExecutor, ioExecutor);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        Node<Integer> first = pipeline.io("first", () -> awaitOther(bothStarted, 1));
+        Node<Integer> second = pipeline.cpu("second", () -> awaitOther(bothStarted, 2));
+        Node<Integer> sum = pipeline.cpu("sum", () -> first.result() + second.result(), first, second);
+
+        assertEquals(3, pipeline.inline("inline", () -> sum.result(), sum));
+        assertEquals(4, pipeline.getTimings().size());
+    }
+
+    @Test
+    void failureIsPropagatedToDependentSteps() {
+        PipelineGraph pipeline = new PipelineGraph("2021-07-23 00:30", cpuExecutor, ioExecutor);
+        AtomicBoolean dependentRun = new AtomicBoolean();
+
+        Node<String> failing = pipeline.io("failing", () -> {
+            throw new CoreValidInvalidDataException("Cannot download file");
+        });
+        Node<Void> dependent = pipeline.ioAction("dependent", () -> dependentRun.set(true), failing);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, dependent::get);
+        assertInstanceOf(CoreValidInvalidDataException.class, exception.getCause());
+        assertFalse(dependentRun.get());
+    }
+
+    @Test
+    void siblingsNotStartedAreCancelledOnFirstFailure() {
+        PipelineGraph pipeline = new PipelineGraph("2021-07-23 00:30", cpuExecutor, ioExecutor);
+        AtomicBoolean siblingRun = new AtomicBoolean();
+        CompletableFuture<Void> siblingDependency = new CompletableFuture<>();
+
+        Node<Void> failing = pipeline.ioAction("failing", () -> {
+            throw new CoreValidInvalidDataException("Cannot upload file");
+        });
+        Node<Void> sibling = pipeline.ioAction("sibling", () -> siblingRun.set(true), new Node<>("dependency", siblingDependency));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> pipeline.awaitAllOrCancel(failing, sibling));
+        assertInstanceOf(CoreValidInvalidDataException.class, exception.getCause());
+        siblingDependency.complete(null);
+        assertTrue(sibling.future().isCancelled());
+        assertFalse(siblingRun.get());
+    }
+
+    private static int awaitOther(CountDownLatch bothStarted, int value) {
+        bothStarted.countDown();
+        try {
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
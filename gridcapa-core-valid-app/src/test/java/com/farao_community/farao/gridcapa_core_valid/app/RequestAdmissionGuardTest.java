@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class RequestAdmissionGuardTest {
+
+    @Test
+    void firstRequestIsAlwaysAdmitted() throws InterruptedException {
+        RequestAdmissionGuard guard = new RequestAdmissionGuard(Long.MAX_VALUE / (1024L * 1024L), 10, 2);
+        guard.acquire();
+        assertEquals(1, guard.getRunningRequests());
+        guard.release();
+        assertEquals(0, guard.getRunningRequests());
+    }
+
+    @Test
+    void requestIsAdmittedWithoutMemoryThreshold() throws InterruptedException {
+        RequestAdmissionGuard guard = new RequestAdmissionGuard(0, 10, 2);
+        guard.acquire();
+        guard.acquire();
+        assertEquals(2, guard.getRunningRequests());
+    }
+
+    @Test
+    void requestWaitsForRunningRequestWhenMemoryIsLow() throws Exception {
+        RequestAdmissionGuard guard = new RequestAdmissionGuard(Long.MAX_VALUE / (1024L * 1024L), 10, 2);
+        guard.acquire();
+        CompletableFuture<Void> secondRequest = CompletableFuture.runAsync(() -> {
+            try {
+                guard.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(secondRequest.isDone());
+        guard.release();
+        secondRequest.get(5, TimeUnit.SECONDS);
+        assertEquals(1, guard.getRunningRequests());
+    }
+
+    @Test
+    void requestWaitsForRunningRequestWhenMaxRunningRequestsAreReached() throws Exception {
+        RequestAdmissionGuard guard = new RequestAdmissionGuard(0, 10, 1);
+        guard.acquire();
+        CompletableFuture<Void> secondRequest = CompletableFuture.runAsync(() -> {
+            try {
+                guard.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(secondRequest.isDone());
+        guard.release();
+        secondRequest.get(5, TimeUnit.SECONDS);
+        assertEquals(1, guard.getRunningRequests());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.minio_adapter.starter.MinioAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class ArtifactsJanitorTest {
+
+    private static final String PREFIX = "20210723_0030";
+    private static final String CLEANUP_PATH = "artifacts/cleanups/20210723_0030.json";
+
+    private final MinioAdapter minioAdapter = Mockito.mock(MinioAdapter.class);
+    private final UrlValidationService urlValidationService = Mockito.mock(UrlValidationService.class);
+    private final ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+    private ArtifactsJanitor artifactsJanitor;
+
+    @BeforeEach
+    void setUp() {
+        // Deletions are run as soon as they are submitted
+        Mockito.doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(executor).execute(Mockito.any());
+        artifactsJanitor = new ArtifactsJanitor(minioAdapter, urlValidationService, executor, 2, 24, 360);
+    }
+
+    @Test
+    void artifactsAreDeletedByBatchesThenCleanupIsUnregistered() {
+        Mockito.when(minioAdapter.listFiles("artifacts/" + PREFIX)).thenReturn(List.of("a1", "a2", "a3", "a4", "a5"));
+
+        artifactsJanitor.cleanUp(PREFIX);
+
+        Mockito.verify(minioAdapter).deleteFiles(List.of("a1", "a2"));
+        Mockito.verify(minioAdapter).deleteFiles(List.of("a3", "a4"));
+        Mockito.verify(minioAdapter).deleteFiles(List.of("a5"));
+        Mockito.verify(minioAdapter).deleteFiles(List.of(CLEANUP_PATH));
+    }
+
+    @Test
+    void cleanupIsKeptWhenArtifactsCannotBeDeleted() {
+        Mockito.when(minioAdapter.listFiles("artifacts/" + PREFIX)).thenReturn(List.of("a1"));
+        Mockito.doThrow(new RuntimeException("MinIO unavailable")).when(minioAdapter).deleteFiles(List.of("a1"));
+
+        artifactsJanitor.cleanUp(PREFIX);
+
+        Mockito.verify(minioAdapter, Mockito.never()).deleteFiles(List.of(CLEANUP_PATH));
+    }
+
+    @Test
+    void registeredCleanupIsRecorded() throws IOException {
+        artifactsJanitor.registerCleanup(PREFIX);
+
+        ArgumentCaptor<InputStream> cleanupCaptor = ArgumentCaptor.forClass(InputStream.class);
+        Mockito.verify(minioAdapter).uploadArtifact(Mockito.eq(CLEANUP_PATH), cleanupCaptor.capture());
+        assertTrue(new String(cleanupCaptor.getValue().readAllBytes()).startsWith("{\"prefix\":\"20210723_0030\",\"registeredAt\":"));
+    }
+
+    @Test
+    void retentionOfSharedArtifactIsRenewedByRegisteringItsCleanup() throws IOException {
+        artifactsJanitor.renewRetention("artifacts/crac_hash.json");
+
+        ArgumentCaptor<InputStream> cleanupCaptor = ArgumentCaptor.forClass(InputStream.class);
+        Mockito.verify(minioAdapter).uploadArtifact(Mockito.eq("artifacts/cleanups/crac_hash.json.json"), cleanupCaptor.capture());
+        assertTrue(new String(cleanupCaptor.getValue().readAllBytes()).startsWith("{\"prefix\":\"crac_hash.json\",\"registeredAt\":"));
+    }
+
+    @Test
+    void onlyCleanupsOlderThanOrphanAgeAreSwept() {
+        String recentCleanupPath = "artifacts/cleanups/20210723_0130.json";
+        Mockito.when(minioAdapter.listFiles("artifacts/cleanups/")).thenReturn(List.of(CLEANUP_PATH, recentCleanupPath));
+        mockCleanup(CLEANUP_PATH, PREFIX, Instant.now().minus(Duration.ofDays(2)));
+        mockCleanup(recentCleanupPath, "20210723_0130", Instant.now());
+        Mockito.when(minioAdapter.listFiles("artifacts/" + PREFIX)).thenReturn(List.of("orphan"));
+
+        artifactsJanitor.sweepOrphans();
+
+        Mockito.verify(minioAdapter).deleteFiles(List.of("orphan"));
+        Mockito.verify(minioAdapter).deleteFiles(List.of(CLEANUP_PATH));
+        Mockito.verify(minioAdapter, Mockito.never()).listFiles("artifacts/20210723_0130");
+        Mockito.verify(minioAdapter, Mockito.times(2)).deleteFiles(Mockito.any());
+    }
+
+    private void mockCleanup(String cleanupPath, String prefix, Instant registeredAt) {
+        String url = "http://" + prefix;
+        Mockito.when(minioAdapter.generatePreSignedUrl(cleanupPath)).thenReturn(url);
+        Mockito.when(urlValidationService.openUrlStream(url))
+                .thenReturn(new ByteArrayInputStream(String.format("{\"prefix\":\"%s\",\"registeredAt\":%d}", prefix, registeredAt.toEpochMilli()).getBytes()));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidFileResource;
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class CoreValidDayInputsTest {
+
+    private final FileImporter fileImporter = Mockito.mock(FileImporter.class);
+    private final CoreValidFileResource cbcora = new CoreValidFileResource("cbcora.xml", "http://minio:9000/cbcora.xml");
+    private final CoreValidFileResource refProg = new CoreValidFileResource("refprog.xml", "http://minio:9000/refprog.xml");
+    private final OffsetDateTime firstTimestamp = OffsetDateTime.parse("2021-07-22T22:30Z");
+    private final OffsetDateTime secondTimestamp = firstTimestamp.plusHours(1);
+
+    @Test
+    void cbcoraAndReferenceProgramAreImportedOnceForAllTimestamps() {
+        byte[] cbcoraContent = "cbcora".getBytes(StandardCharsets.UTF_8);
+        DailyReferenceProgram dailyReferenceProgram = DailyReferenceProgram.importDailyRefProg(Objects.requireNonNull(getClass().getResourceAsStream("/20210723/20210723-F110.xml")));
+        Mockito.when(fileImporter.importCbcoraContent(cbcora.getUrl())).thenReturn(cbcoraContent);
+        Mockito.when(fileImporter.importDailyReferenceProgram(refProg)).thenReturn(dailyReferenceProgram);
+        Network network = Mockito.mock(Network.class);
+        CoreValidDayInputs dayInputs = new CoreValidDayInputs(fileImporter, cbcora, null, refProg, null);
+
+        dayInputs.getCoreNetPositions(firstTimestamp);
+        dayInputs.getCracCreationContext(firstTimestamp, network);
+        dayInputs.getCoreNetPositions(secondTimestamp);
+        dayInputs.getCracCreationContext(secondTimestamp, network);
+
+        Mockito.verify(fileImporter).importCbcoraContent(cbcora.getUrl());
+        Mockito.verify(fileImporter).importDailyReferenceProgram(refProg);
+        Mockito.verify(fileImporter).importCrac(cbcora.getUrl(), cbcoraContent, firstTimestamp, network);
+        Mockito.verify(fileImporter).importCrac(cbcora.getUrl(), cbcoraContent, secondTimestamp, network);
+        Mockito.verify(fileImporter).getCoreNetPositions(dailyReferenceProgram, firstTimestamp);
+        Mockito.verify(fileImporter).getCoreNetPositions(dailyReferenceProgram, secondTimestamp);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.powsybl.openrao.data.crac.io.fbconstraint.FbConstraintCreationContext;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class CracCacheTest {
+
+    private final byte[] cbcoraContent = "cbcora".getBytes(StandardCharsets.UTF_8);
+    private final OffsetDateTime timestamp = OffsetDateTime.parse("2021-07-22T22:30Z");
+
+    @Test
+    void cracIsCreatedOnceForSameCbcoraTimestampAndNetwork() {
+        CracCache cracCache = new CracCache(1);
+        AtomicInteger imports = new AtomicInteger();
+
+        FbConstraintCreationContext first = cracCache.getCracCreationContext(cbcoraContent, timestamp, "network", () -> importCrac(imports));
+        FbConstraintCreationContext second = cracCache.getCracCreationContext(cbcoraContent, timestamp, "network", () -> importCrac(imports));
+        cracCache.getCracCreationContext(cbcoraContent, timestamp.plusHours(1), "network", () -> importCrac(imports));
+        cracCache.getCracCreationContext(cbcoraContent, timestamp, "otherNetwork", () -> importCrac(imports));
+
+        assertSame(first, second);
+        assertEquals(3, imports.get());
+    }
+
+    @Test
+    void cracIsNotCachedForUnknownNetwork() {
+        CracCache cracCache = new CracCache(1);
+        AtomicInteger imports = new AtomicInteger();
+
+        cracCache.getCracCreationContext(cbcoraContent, timestamp, null, () -> importCrac(imports));
+        cracCache.getCracCreationContext(cbcoraContent, timestamp, null, () -> importCrac(imports));
+
+        assertEquals(2, imports.get());
+        assertEquals(0, cracCache.getSize());
+    }
+
+    private static FbConstraintCreationContext importCrac(AtomicInteger imports) {
+        imports.incrementAndGet();
+        return Mockito.mock(FbConstraintCreationContext.class);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInvalidDataException;
+import com.powsybl.openrao.data.refprog.referenceprogram.ReferenceProgram;
+import com.powsybl.openrao.data.refprog.refprogxmlimporter.RefProgImporter;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class DailyReferenceProgramTest {
+
+    private final OffsetDateTime firstHour = OffsetDateTime.parse("2021-07-22T22:30Z");
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/20210723/20210723-F110.xml", "/20210723/20210723-F110-Alegro.xml"})
+    void netPositionsOfEachHourMatchReferenceProgramImport(String refProgPath) {
+        DailyReferenceProgram dailyReferenceProgram = DailyReferenceProgram.importDailyRefProg(Objects.requireNonNull(getClass().getResourceAsStream(refProgPath)));
+
+        for (int hour = 0; hour < 24; hour++) {
+            OffsetDateTime timestamp = firstHour.plusHours(hour);
+            ReferenceProgram expected = RefProgImporter.importRefProg(getClass().getResourceAsStream(refProgPath), timestamp);
+            ReferenceProgram actual = dailyReferenceProgram.getReferenceProgram(timestamp);
+            assertEquals(NetPositionsHandler.computeCoreReferenceNetPositions(expected), NetPositionsHandler.computeCoreReferenceNetPositions(actual), "Timestamp " + timestamp);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2021-07-22T21:30Z", "2021-07-23T22:00Z"})
+    void timestampOutOfPublicationIntervalIsRejected(String timestamp) {
+        DailyReferenceProgram dailyReferenceProgram = DailyReferenceProgram.importDailyRefProg(Objects.requireNonNull(getClass().getResourceAsStream("/20210723/20210723-F110.xml")));
+
+        OffsetDateTime offsetDateTime = OffsetDateTime.parse(timestamp);
+        assertThrows(CoreValidInvalidDataException.class, () -> dailyReferenceProgram.getReferenceProgram(offsetDateTime));
+    }
+}
@@ -6,11 +6,16 @@
  */
 package com.farao_community.farao.gridcapa_core_valid.app.services;
 
+import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInternalException;
 import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
 import com.farao_community.farao.gridcapa_core_valid.app.limiting_branch.LimitingBranchResult;
+import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPoint;
 import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointResult;
 import com.farao_community.farao.minio_adapter.starter.MinioAdapter;
 import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.network.TopologyKind;
+import com.powsybl.iidm.network.VoltageLevel;
+import com.powsybl.iidm.serde.NetworkSerDe;
 import com.powsybl.openrao.data.crac.api.Crac;
 import com.powsybl.openrao.data.crac.api.RemedialAction;
 import com.powsybl.openrao.data.crac.api.State;
@@ -24,16 +29,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
 /**
  * @author Ameni Walha {@literal <ameni.walha at rte-france.com>}
@@ -49,6 +59,8 @@ class FileExporterTest {
 
     @MockitoBean
     private MinioAdapter minioAdapter;
+    @MockitoBean
+    private ArtifactsJanitor artifactsJanitor;
 
     private final OffsetDateTime dateTime = OffsetDateTime.parse("2021-07-22T22:30Z");
 
@@ -60,8 +72,9 @@ class FileExporterTest {
         studyPointsResult.add(studyPointResult);
         CoreValidRequest coreValidRequest = Mockito.mock(CoreValidRequest.class);
         Mockito.when(coreValidRequest.getTimestamp()).thenReturn(dateTime);
-        Mockito.when(coreValidRequest.getLaunchedAutomatically()).thenReturn(true);
-        fileExporter.exportStudyPointResult(studyPointsResult, coreValidRequest, null);
+        fileExporter.exportMainResult(studyPointsResult, coreValidRequest);
+        fileExporter.exportRexResult(studyPointsResult, coreValidRequest);
+        fileExporter.exportRemedialActions(studyPointsResult, coreValidRequest, null);
         ArgumentCaptor<InputStream> argumentCaptor = ArgumentCaptor.forClass(InputStream.class);
         Mockito.verify(minioAdapter, Mockito.times(3)).uploadOutputForTimestamp(Mockito.any(), argumentCaptor.capture(), Mockito.any(), Mockito.any(), Mockito.any());
         List<InputStream> resultsBaos = argumentCaptor.getAllValues();
@@ -78,12 +91,13 @@ class FileExporterTest {
         List<StudyPointResult> studyPointsResult = List.of(mockStudyPointResultWithRemedialAction());
         CoreValidRequest coreValidRequest = Mockito.mock(CoreValidRequest.class);
         Mockito.when(coreValidRequest.getTimestamp()).thenReturn(customDateTime);
-        Mockito.when(coreValidRequest.getLaunchedAutomatically()).thenReturn(true);
 
         Network network = Network.read("network.uct", getClass().getResourceAsStream(directory + "/network.uct"));
         FbConstraintCreationContext fbConstraintCreationContext = fileImporter.importCrac(getClass().getResource(directory + "/crac.xml").toExternalForm(), customDateTime, network);
 
-        fileExporter.exportStudyPointResult(studyPointsResult, coreValidRequest, fbConstraintCreationContext);
+        fileExporter.exportMainResult(studyPointsResult, coreValidRequest);
+        fileExporter.exportRexResult(studyPointsResult, coreValidRequest);
+        fileExporter.exportRemedialActions(studyPointsResult, coreValidRequest, fbConstraintCreationContext);
 
         ArgumentCaptor<InputStream> argumentCaptor = ArgumentCaptor.forClass(InputStream.class);
         Mockito.verify(minioAdapter, Mockito.times(3)).uploadOutputForTimestamp(Mockito.any(), argumentCaptor.capture(), Mockito.any(), Mockito.any(), Mockito.any());
@@ -99,14 +113,33 @@ class FileExporterTest {
         studyPointsResult.add(studyPointResult);
         CoreValidRequest coreValidRequest = Mockito.mock(CoreValidRequest.class);
         Mockito.when(coreValidRequest.getTimestamp()).thenReturn(dateTime);
-        Mockito.when(coreValidRequest.getLaunchedAutomatically()).thenReturn(false);
-        fileExporter.exportStudyPointResult(studyPointsResult, coreValidRequest, null);
+        fileExporter.exportRexResult(studyPointsResult, coreValidRequest);
+        fileExporter.exportRemedialActions(studyPointsResult, coreValidRequest, null);
         ArgumentCaptor<InputStream> argumentCaptor = ArgumentCaptor.forClass(InputStream.class);
         Mockito.verify(minioAdapter, Mockito.times(2)).uploadOutputForTimestamp(Mockito.any(), argumentCaptor.capture(), Mockito.any(), Mockito.any(), Mockito.any());
         List<InputStream> resultsBaos = argumentCaptor.getAllValues();
         assertEquals("Period;Vertice ID;Branch ID;Branch Name;Outage Name;Branch Status;RAM before;RAM after;flow before;flow after\r\n;;;;;;0;0;0;0\r\n", new String(resultsBaos.get(0).readAllBytes()));
     }
 
+    @Test
+    void exportFailedStudyPointResultTest() throws IOException {
+        Mockito.when(minioAdapter.generatePreSignedUrl(Mockito.any())).thenReturn("resultUrl");
+        StudyPointResult failedStudyPointResult = new StudyPointResult("vertice ID");
+        failedStudyPointResult.setStatusToError();
+        failedStudyPointResult.setPeriod("1");
+        CoreValidRequest coreValidRequest = Mockito.mock(CoreValidRequest.class);
+        Mockito.when(coreValidRequest.getTimestamp()).thenReturn(dateTime);
+        List<StudyPointResult> studyPointsResult = List.of(failedStudyPointResult);
+        fileExporter.exportMainResult(studyPointsResult, coreValidRequest);
+        fileExporter.exportRexResult(studyPointsResult, coreValidRequest);
+        fileExporter.exportRemedialActions(studyPointsResult, coreValidRequest, null);
+        ArgumentCaptor<InputStream> argumentCaptor = ArgumentCaptor.forClass(InputStream.class);
+        Mockito.verify(minioAdapter, Mockito.times(3)).uploadOutputForTimestamp(Mockito.any(), argumentCaptor.capture(), Mockito.any(), Mockito.any(), Mockito.any());
+        List<InputStream> resultsBaos = argumentCaptor.getAllValues();
+        assertEquals("Period;Vertice ID;Branch ID;Branch Status;RAM before;RAM after\r\n1;vertice ID;;ERROR;;\r\n", new String(resultsBaos.get(0).readAllBytes()));
+        assertEquals("Period;Vertice ID;Branch ID;Branch Name;Outage Name;Branch Status;RAM before;RAM after;flow before;flow after\r\n1;vertice ID;;;;ERROR;;;;\r\n", new String(resultsBaos.get(1).readAllBytes()));
+    }
+
     private StudyPointResult mockStudyPointResult() {
         State state = Mockito.mock(State.class);
         LimitingBranchResult limitingBranchResult = Mockito.mock(LimitingBranchResult.class);
@@ -167,6 +200,53 @@ class FileExporterTest {
         assertEquals("cracUrl", cracUrl);
     }
 
+    @Test
+    void sameCracIsConvertedAndUploadedOnlyOnce() {
+        Crac crac = new CracImpl("sameCrac");
+        Mockito.when(minioAdapter.generatePreSignedUrl(Mockito.any())).thenReturn("cracUrl");
+        String firstUrl = fileExporter.saveCracInJsonFormat(crac, dateTime);
+        String secondUrl = fileExporter.saveCracInJsonFormat(crac, dateTime);
+        Mockito.verify(minioAdapter, Mockito.times(1)).uploadArtifact(Mockito.any(), Mockito.any(InputStream.class));
+        Mockito.verify(minioAdapter, Mockito.times(1)).generatePreSignedUrl(Mockito.any());
+        assertEquals(firstUrl, secondUrl);
+    }
+
+    @Test
+    void alreadyUploadedCracIsNotUploadedAgain() {
+        Crac crac = new CracImpl("uploadedCrac");
+        Mockito.when(minioAdapter.fileExists(Mockito.any())).thenReturn(true);
+        Mockito.when(minioAdapter.generatePreSignedUrl(Mockito.any())).thenReturn("cracUrl");
+        assertEquals("cracUrl", fileExporter.saveCracInJsonFormat(crac, dateTime));
+        Mockito.verify(minioAdapter, Mockito.never()).uploadArtifact(Mockito.any(), Mockito.any(InputStream.class));
+    }
+
+    @Test
+    void removedCracIsUploadedAgainOncePreSignedUrlCannotBeReused() {
+        // Pre-signed URLs are never reused
+        FileExporter exporter = new FileExporter(minioAdapter, null, null, null, artifactsJanitor, 0, NetworkArtifactFormat.XIIDM);
+        Crac crac = new CracImpl("removedCrac");
+        Mockito.when(minioAdapter.generatePreSignedUrl(Mockito.any())).thenReturn("cracUrl");
+        exporter.saveCracInJsonFormat(crac, dateTime);
+        Mockito.when(minioAdapter.fileExists(Mockito.any())).thenReturn(false);
+
+        assertEquals("cracUrl", exporter.saveCracInJsonFormat(crac, dateTime));
+        Mockito.verify(minioAdapter, Mockito.times(2)).uploadArtifact(Mockito.startsWith("artifacts/crac_"), Mockito.any(InputStream.class));
+    }
+
+    @Test
+    void retentionOfSharedArtifactsIsRenewedWhenTheirUrlIsGeneratedOrReused() {
+        FileExporter exporter = new FileExporter(minioAdapter, null, null, null, artifactsJanitor, 60, NetworkArtifactFormat.XIIDM);
+        Crac crac = new CracImpl("sharedCrac");
+        Mockito.when(minioAdapter.generatePreSignedUrl(Mockito.any())).thenReturn("url");
+        exporter.saveCracInJsonFormat(crac, dateTime);
+        exporter.saveCracInJsonFormat(crac, dateTime);
+        exporter.saveRaoParametersAndGetUrl(RaoParameters.load());
+
+        Mockito.verify(minioAdapter, Mockito.times(1)).generatePreSignedUrl(Mockito.startsWith("artifacts/crac_"));
+        Mockito.verify(artifactsJanitor, Mockito.times(2)).renewRetention(Mockito.startsWith("artifacts/crac_"));
+        Mockito.verify(artifactsJanitor, Mockito.times(1)).renewRetention(Mockito.startsWith("artifacts/raoParameters_"));
+    }
+
     @Test
     void saveShiftedCgmWithPraTest() {
         String raoDirectory = "/rao-result";
@@ -176,4 +256,53 @@ class FileExporterTest {
         Mockito.verify(minioAdapter, Mockito.times(1)).uploadArtifact(Mockito.any(), Mockito.any(InputStream.class));
         assertEquals("cgmWithPraUrl", cgmWithPraUrl);
     }
+
+    @Test
+    void shiftedCgmIsStreamedToUpload() {
+        Network network = Network.read("network.uct", getClass().getResourceAsStream("/rao-result/network.uct"));
+        StudyPoint studyPoint = new StudyPoint(1, "vertice1", Map.of());
+        List<byte[]> uploadedContents = new ArrayList<>();
+        Mockito.doAnswer(invocation -> uploadedContents.add(invocation.getArgument(1, InputStream.class).readAllBytes()))
+                .when(minioAdapter).uploadArtifact(Mockito.any(), Mockito.any(InputStream.class));
+        Mockito.when(minioAdapter.generatePreSignedUrl(Mockito.any())).thenReturn("shiftedCgmUrl");
+
+        assertEquals("shiftedCgmUrl", fileExporter.saveShiftedCgm(network, studyPoint));
+        assertEquals(1, uploadedContents.size());
+        Network uploadedNetwork = NetworkSerDe.read(new ByteArrayInputStream(uploadedContents.get(0)));
+        assertEquals(network.getBusBreakerView().getBusStream().count(), uploadedNetwork.getBusBreakerView().getBusStream().count());
+    }
+
+    @Test
+    void shiftedCgmUploadFailureIsReported() {
+        Network network = Network.read("network.uct", getClass().getResourceAsStream("/rao-result/network.uct"));
+        StudyPoint studyPoint = new StudyPoint(1, "vertice1", Map.of());
+        Mockito.doThrow(new RuntimeException("upload failed"))
+                .when(minioAdapter).uploadArtifact(Mockito.any(), Mockito.any(InputStream.class));
+
+        assertThrows(RuntimeException.class, () -> fileExporter.saveShiftedCgm(network, studyPoint));
+        Mockito.verify(minioAdapter, Mockito.never()).generatePreSignedUrl(Mockito.any());
+    }
+
+    @Test
+    void shiftedCgmWriterIsStoppedWhenUploadDoesNotReadWholeNetwork() {
+        Network network = createNetworkLargerThanPipe();
+        StudyPoint studyPoint = new StudyPoint(1, "vertice1", Map.of());
+        Mockito.doAnswer(invocation -> invocation.getArgument(1, InputStream.class).read())
+                .when(minioAdapter).uploadArtifact(Mockito.any(), Mockito.any(InputStream.class));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30),
+            () -> assertThrows(CoreValidInternalException.class, () -> fileExporter.saveShiftedCgm(network, studyPoint)));
+        Mockito.verify(minioAdapter, Mockito.never()).generatePreSignedUrl(Mockito.any());
+    }
+
+    private static Network createNetworkLargerThanPipe() {
+        Network network = Network.create("large", "test");
+        VoltageLevel voltageLevel = network.newSubstation().setId("substation").add()
+                .newVoltageLevel().setId("voltageLevel").setNominalV(400).setTopologyKind(TopologyKind.BUS_BREAKER).add();
+        voltageLevel.getBusBreakerView().newBus().setId("bus").add();
+        for (int i = 0; i < 20_000; i++) {
+            voltageLevel.newLoad().setId("load" + i).setBus("bus").setP0(1).setQ0(0).add();
+        }
+        return network;
+    }
 }
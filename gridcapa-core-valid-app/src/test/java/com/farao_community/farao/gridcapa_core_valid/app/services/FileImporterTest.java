@@ -21,6 +21,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import java.io.InputStream;
 import java.net.URL;
 import java.time.OffsetDateTime;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -56,6 +57,17 @@ class FileImporterTest {
         assertEquals(275, referenceProgram.getGlobalNetPosition("10YBE----------2"));
     }
 
+    @Test
+    void importCoreNetPositions() {
+        CoreValidFileResource refProgFile = createFileResource("refprog", getClass().getResource(testDirectory + "/20210723-F110.xml"));
+        Map<String, Double> coreNetPositions = fileImporter.importCoreNetPositions(refProgFile, dateTime);
+        assertEquals(-50, coreNetPositions.get("FR"));
+        assertEquals(-450, coreNetPositions.get("DE"));
+        assertEquals(225, coreNetPositions.get("NL"));
+        assertEquals(275, coreNetPositions.get("BE"));
+        assertEquals(coreNetPositions, fileImporter.importCoreNetPositions(refProgFile, dateTime));
+    }
+
     @Test
     void importCrac() {
         InputStream networkStream = getClass().getResourceAsStream(testDirectory + "/20210723_0030_2D5_CGM.uct");
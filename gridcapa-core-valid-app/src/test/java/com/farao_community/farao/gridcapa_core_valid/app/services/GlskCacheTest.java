@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.powsybl.glsk.api.GlskDocument;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class GlskCacheTest {
+
+    private final byte[] glskContent = "glsk".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void glskDocumentIsImportedOnceForSameContent() {
+        GlskCache glskCache = new GlskCache(1);
+        AtomicInteger imports = new AtomicInteger();
+
+        GlskDocument first = glskCache.getGlskDocument(glskContent, () -> importGlsk(imports));
+        GlskDocument second = glskCache.getGlskDocument(glskContent, () -> importGlsk(imports));
+
+        assertSame(first, second);
+        assertEquals(1, imports.get());
+    }
+
+    private static GlskDocument importGlsk(AtomicInteger imports) {
+        imports.incrementAndGet();
+        return Mockito.mock(GlskDocument.class);
+    }
+}
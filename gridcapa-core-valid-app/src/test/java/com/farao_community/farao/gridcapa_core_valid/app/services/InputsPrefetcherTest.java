@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInvalidDataException;
+import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidFileResource;
+import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class InputsPrefetcherTest {
+
+    private final FileImporter fileImporter = Mockito.mock(FileImporter.class);
+    private final ExecutorService prefetchExecutor = Mockito.mock(ExecutorService.class);
+    private final CoreValidFileResource cgm = new CoreValidFileResource("cgm.uct", "http://minio:9000/cgm.uct");
+    private final CoreValidFileResource cbcora = new CoreValidFileResource("cbcora.xml", "http://minio:9000/cbcora.xml");
+    private final CoreValidRequest coreValidRequest = new CoreValidRequest("id", "runId", OffsetDateTime.parse("2021-07-22T23:30Z"), cgm, cbcora, null, null, null);
+
+    @Test
+    void networkAndCracAreImportedForUpcomingRequest() {
+        InputsPrefetcher inputsPrefetcher = new InputsPrefetcher(fileImporter, prefetchExecutor, true, 0);
+        Network network = Mockito.mock(Network.class);
+        Mockito.when(fileImporter.importNetwork(cgm)).thenReturn(network);
+
+        inputsPrefetcher.prefetchInputs(coreValidRequest);
+
+        Mockito.verify(fileImporter).importNetwork(cgm);
+        Mockito.verify(fileImporter).importCrac(Mockito.eq(cbcora.getUrl()), Mockito.any(), Mockito.eq(coreValidRequest.getTimestamp()), Mockito.eq(network));
+    }
+
+    @Test
+    void prefetchIsSkippedWithoutEnoughMemory() {
+        InputsPrefetcher inputsPrefetcher = new InputsPrefetcher(fileImporter, prefetchExecutor, true, Long.MAX_VALUE / (1024 * 1024));
+
+        inputsPrefetcher.prefetchInputs(coreValidRequest);
+
+        Mockito.verifyNoInteractions(fileImporter);
+    }
+
+    @Test
+    void prefetchFailureIsNotPropagated() {
+        InputsPrefetcher inputsPrefetcher = new InputsPrefetcher(fileImporter, prefetchExecutor, true, 0);
+        Mockito.when(fileImporter.importNetwork(cgm)).thenThrow(new CoreValidInvalidDataException("Cannot download CGM"));
+
+        assertDoesNotThrow(() -> inputsPrefetcher.prefetchInputs(coreValidRequest));
+    }
+
+    @Test
+    void nothingIsSubmittedWhenPrefetchIsDisabled() {
+        InputsPrefetcher inputsPrefetcher = new InputsPrefetcher(fileImporter, prefetchExecutor, false, 0);
+
+        inputsPrefetcher.prefetch(coreValidRequest);
+
+        Mockito.verifyNoInteractions(prefetchExecutor);
+    }
+}
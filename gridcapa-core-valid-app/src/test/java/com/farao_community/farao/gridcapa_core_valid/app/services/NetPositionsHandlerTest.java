@@ -56,6 +56,13 @@ class NetPositionsHandlerTest {
         assertEquals(275, coreNetPositions.get("BE"));
     }
 
+    @Test
+    void computeShiftVolumeTest() {
+        StudyPoint studyPoint = new StudyPoint(1, "vertice", Map.of("NP_FR", 150., "NP_DE", -500., "NP_AT", 20., "NP_BE_ALEGrO", 1000.));
+        Map<String, Double> coreNetPositions = Map.of("FR", -50., "DE", -450.);
+        assertEquals(270., NetPositionsHandler.computeShiftVolume(studyPoint, coreNetPositions), 1e-6);
+    }
+
     @Test
     void shiftNetPositionTestWithAlegroShift() {
         OffsetDateTime dateTime = OffsetDateTime.parse("2021-07-22T22:30Z");
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.powsybl.iidm.network.Network;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Reports, for each shifted network artifact format, the bytes written and the serialization time of sample CGMs.
+ * CGM files can be given as arguments, the test CGMs being used otherwise. Not run with the tests:
+ * <pre>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.farao_community.farao.gridcapa_core_valid.app.services.NetworkArtifactFormatBenchmark</pre>
+ *
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+public final class NetworkArtifactFormatBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NetworkArtifactFormatBenchmark.class);
+
+    private static final List<String> SAMPLE_CGMS = List.of("20210723_0030_2D5_CGM.uct", "20210723_0430_2D5_CGM.uct", "20210723_1130_2D5_CGM.uct");
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    private NetworkArtifactFormatBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            for (String cgm : SAMPLE_CGMS) {
+                try (InputStream is = NetworkArtifactFormatBenchmark.class.getResourceAsStream("/20210723/" + cgm)) {
+                    benchmark(Network.read(cgm, is));
+                }
+            }
+        } else {
+            for (String cgm : args) {
+                Path path = Path.of(cgm);
+                try (InputStream is = Files.newInputStream(path)) {
+                    benchmark(Network.read(path.getFileName().toString(), is));
+                }
+            }
+        }
+    }
+
+    private static void benchmark(Network network) throws IOException {
+        for (NetworkArtifactFormat format : NetworkArtifactFormat.values()) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                write(network, format);
+            }
+            long bytes = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                bytes = write(network, format);
+            }
+            long averageMs = (System.nanoTime() - start) / MEASURED_ITERATIONS / 1_000_000;
+            LOGGER.info("{} in {}: {} bytes written in {} ms", network.getNameOrId(), format, bytes, averageMs);
+        }
+    }
+
+    private static long write(Network network, NetworkArtifactFormat format) throws IOException {
+        CountingOutputStream os = new CountingOutputStream(NullOutputStream.INSTANCE);
+        format.write(network, os);
+        return os.getByteCount();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class NetworkArtifactFormatTest {
+
+    @ParameterizedTest
+    @EnumSource(NetworkArtifactFormat.class)
+    void writtenNetworkIsReadBackFromItsExtension(NetworkArtifactFormat format) throws IOException {
+        Network network = Network.read("20210723_0030_2D5_CGM.uct", getClass().getResourceAsStream("/20210723/20210723_0030_2D5_CGM.uct"));
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        format.write(network, os);
+
+        Network readNetwork = Network.read("network." + format.getExtension(), new ByteArrayInputStream(os.toByteArray()));
+        assertEquals(network.getId(), readNetwork.getId());
+        assertEquals(network.getGeneratorCount(), readNetwork.getGeneratorCount());
+        assertEquals(network.getLineCount(), readNetwork.getLineCount());
+    }
+}
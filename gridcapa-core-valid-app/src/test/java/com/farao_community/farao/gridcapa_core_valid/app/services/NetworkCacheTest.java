@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class NetworkCacheTest {
+
+    private static final String NETWORK_FILE_NAME = "20210723_0030_2D5_CGM.uct";
+
+    @Test
+    void sameCgmContentIsImportedOnlyOnce() throws IOException {
+        NetworkCache networkCache = new NetworkCache(64);
+        byte[] cgmContent = getClass().getResourceAsStream("/20210723/" + NETWORK_FILE_NAME).readAllBytes();
+        AtomicInteger imports = new AtomicInteger();
+
+        Network firstNetwork = networkCache.getNetwork(NETWORK_FILE_NAME, cgmContent, () -> importNetwork(cgmContent, imports));
+        Network secondNetwork = networkCache.getNetwork(NETWORK_FILE_NAME, cgmContent, () -> importNetwork(cgmContent, imports));
+
+        assertEquals(1, imports.get());
+        assertNotSame(firstNetwork, secondNetwork);
+        assertEquals(firstNetwork.getNameOrId(), secondNetwork.getNameOrId());
+        assertEquals(firstNetwork.getGeneratorCount(), secondNetwork.getGeneratorCount());
+        assertTrue(networkCache.getSize() > 0);
+    }
+
+    @Test
+    void networksAreAlwaysImportedWhenCacheIsDisabled() throws IOException {
+        NetworkCache networkCache = new NetworkCache(0);
+        byte[] cgmContent = getClass().getResourceAsStream("/20210723/" + NETWORK_FILE_NAME).readAllBytes();
+        AtomicInteger imports = new AtomicInteger();
+
+        networkCache.getNetwork(NETWORK_FILE_NAME, cgmContent, () -> importNetwork(cgmContent, imports));
+        networkCache.getNetwork(NETWORK_FILE_NAME, cgmContent, () -> importNetwork(cgmContent, imports));
+
+        assertEquals(2, imports.get());
+        assertEquals(0, networkCache.getSize());
+    }
+
+    private static Network importNetwork(byte[] cgmContent, AtomicInteger imports) {
+        imports.incrementAndGet();
+        return NetworkHandler.loadNetwork(NETWORK_FILE_NAME, new ByteArrayInputStream(cgmContent));
+    }
+}
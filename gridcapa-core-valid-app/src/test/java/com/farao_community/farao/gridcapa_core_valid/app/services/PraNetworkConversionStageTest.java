@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.minio_adapter.starter.MinioAdapter;
+import com.powsybl.iidm.network.Network;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class PraNetworkConversionStageTest {
+
+    private static final String CONVERSION_PATH = "artifacts/pra-conversions/network_vertice1_withPra.uct.json";
+
+    private final FileImporter fileImporter = Mockito.mock(FileImporter.class);
+    private final FileExporter fileExporter = Mockito.mock(FileExporter.class);
+    private final MinioAdapter minioAdapter = Mockito.mock(MinioAdapter.class);
+    private final UrlValidationService urlValidationService = Mockito.mock(UrlValidationService.class);
+    private final ThreadPoolExecutor executor = Mockito.mock(ThreadPoolExecutor.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PraNetworkConversionStage conversionStage;
+
+    @BeforeEach
+    void setUp() {
+        // Conversions are run as soon as they are submitted
+        Mockito.doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(executor).execute(Mockito.any());
+        conversionStage = new PraNetworkConversionStage(fileImporter, fileExporter, minioAdapter, urlValidationService, executor, meterRegistry);
+    }
+
+    @Test
+    void submittedConversionIsRecordedUntilDone() throws IOException {
+        Network network = Mockito.mock(Network.class);
+        Mockito.when(fileImporter.importNetworkFromUrl("http://praUrl")).thenReturn(network);
+
+        conversionStage.submit("http://praUrl", "network_vertice1_withPra.uct");
+
+        ArgumentCaptor<InputStream> conversionCaptor = ArgumentCaptor.forClass(InputStream.class);
+        Mockito.verify(minioAdapter).uploadArtifact(Mockito.eq(CONVERSION_PATH), conversionCaptor.capture());
+        assertEquals("{\"networkWithPraUrl\":\"http://praUrl\",\"fileName\":\"network_vertice1_withPra.uct\"}", new String(conversionCaptor.getValue().readAllBytes()));
+        Mockito.verify(fileExporter).saveShiftedCgmWithPra(network, "network_vertice1_withPra.uct");
+        Mockito.verify(minioAdapter).deleteFiles(List.of(CONVERSION_PATH));
+        assertEquals(0, conversionStage.getPending());
+    }
+
+    @Test
+    void conversionsLeftByPreviousRunAreRecovered() {
+        Network network = Mockito.mock(Network.class);
+        Mockito.when(minioAdapter.listFiles("artifacts/pra-conversions/")).thenReturn(List.of(CONVERSION_PATH));
+        Mockito.when(minioAdapter.generatePreSignedUrl(CONVERSION_PATH)).thenReturn("http://conversion");
+        Mockito.when(urlValidationService.openUrlStream("http://conversion"))
+                .thenReturn(new ByteArrayInputStream("{\"networkWithPraUrl\":\"http://praUrl\",\"fileName\":\"network_vertice1_withPra.uct\"}".getBytes()));
+        Mockito.when(fileImporter.importNetworkFromUrl("http://praUrl")).thenReturn(network);
+
+        conversionStage.recoverConversions();
+
+        Mockito.verify(fileExporter).saveShiftedCgmWithPra(network, "network_vertice1_withPra.uct");
+        Mockito.verify(minioAdapter).deleteFiles(List.of(CONVERSION_PATH));
+    }
+
+    @Test
+    void failedConversionIsCountedAndDropped() {
+        Mockito.when(fileImporter.importNetworkFromUrl("http://praUrl")).thenThrow(new RuntimeException("expired URL"));
+
+        conversionStage.submit("http://praUrl", "network_vertice1_withPra.uct");
+
+        Mockito.verify(fileExporter, Mockito.never()).saveShiftedCgmWithPra(Mockito.any(), Mockito.any());
+        Mockito.verify(minioAdapter).deleteFiles(List.of(CONVERSION_PATH));
+        assertEquals(1.0, meterRegistry.get("core.valid.pra.conversion.failures").counter().count());
+        assertEquals(0, conversionStage.getPending());
+    }
+
+    @Test
+    void conversionSubmittedToFullQueueIsDeferredWithoutBlockingTheCaller() {
+        Network network = Mockito.mock(Network.class);
+        Mockito.when(fileImporter.importNetworkFromUrl(Mockito.anyString())).thenReturn(network);
+        // Queue is full for the first conversion, then has room again for the second one
+        Mockito.doThrow(new RejectedExecutionException("full"))
+                .doThrow(new RejectedExecutionException("full"))
+                .doAnswer(invocation -> {
+                    invocation.getArgument(0, Runnable.class).run();
+                    return null;
+                }).when(executor).execute(Mockito.any());
+
+        conversionStage.submit("http://praUrl1", "network_vertice1_withPra.uct");
+
+        Mockito.verify(fileImporter, Mockito.never()).importNetworkFromUrl(Mockito.anyString());
+        Mockito.verify(minioAdapter).uploadArtifact(Mockito.eq(CONVERSION_PATH), Mockito.any(InputStream.class));
+        assertEquals(1, conversionStage.getPending());
+
+        conversionStage.submit("http://praUrl2", "network_vertice2_withPra.uct");
+
+        Mockito.verify(fileExporter).saveShiftedCgmWithPra(network, "network_vertice2_withPra.uct");
+        Mockito.verify(fileExporter).saveShiftedCgmWithPra(network, "network_vertice1_withPra.uct");
+        Mockito.verify(minioAdapter).deleteFiles(List.of(CONVERSION_PATH));
+        assertEquals(0, conversionStage.getPending());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class ReferenceProgramCacheTest {
+
+    private final byte[] refProgContent = "refprog".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void referenceProgramIsImportedOnceForSameContent() {
+        ReferenceProgramCache referenceProgramCache = new ReferenceProgramCache(7);
+        AtomicInteger imports = new AtomicInteger();
+
+        DailyReferenceProgram first = referenceProgramCache.getDailyReferenceProgram(refProgContent, () -> importRefProg(imports));
+        DailyReferenceProgram second = referenceProgramCache.getDailyReferenceProgram(refProgContent, () -> importRefProg(imports));
+
+        assertSame(first, second);
+        assertEquals(1, imports.get());
+    }
+
+    @Test
+    void referenceProgramIsImportedForEachRequestWhenCacheIsDisabled() {
+        ReferenceProgramCache referenceProgramCache = new ReferenceProgramCache(0);
+        AtomicInteger imports = new AtomicInteger();
+
+        referenceProgramCache.getDailyReferenceProgram(refProgContent, () -> importRefProg(imports));
+        referenceProgramCache.getDailyReferenceProgram(refProgContent, () -> importRefProg(imports));
+
+        assertEquals(2, imports.get());
+    }
+
+    private static DailyReferenceProgram importRefProg(AtomicInteger imports) {
+        imports.incrementAndGet();
+        return Mockito.mock(DailyReferenceProgram.class);
+    }
+}
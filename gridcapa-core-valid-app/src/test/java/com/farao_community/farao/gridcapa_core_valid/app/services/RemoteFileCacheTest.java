@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class RemoteFileCacheTest {
+
+    private static final byte[] CONTENT = "study points".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    private Path cacheDirectory;
+    private HttpServer server;
+    private final AtomicInteger downloads = new AtomicInteger();
+    private String etag = "\"v1\"";
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/bucket/file.csv", exchange -> {
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                downloads.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", etag);
+                exchange.sendResponseHeaders(200, CONTENT.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(CONTENT);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void unmodifiedFileIsDownloadedOnlyOnce() throws IOException {
+        RemoteFileCache remoteFileCache = new RemoteFileCache(cacheDirectory.toString(), 1);
+
+        assertEquals("study points", read(remoteFileCache, "?X-Amz-Signature=first"));
+        assertEquals("study points", read(remoteFileCache, "?X-Amz-Signature=second"));
+
+        assertEquals(1, downloads.get());
+        assertEquals(CONTENT.length, remoteFileCache.getSize());
+    }
+
+    @Test
+    void modifiedFileIsDownloadedAgain() throws IOException {
+        RemoteFileCache remoteFileCache = new RemoteFileCache(cacheDirectory.toString(), 1);
+
+        read(remoteFileCache, "");
+        etag = "\"v2\"";
+        read(remoteFileCache, "");
+
+        assertEquals(2, downloads.get());
+        assertEquals(CONTENT.length, remoteFileCache.getSize());
+    }
+
+    private String read(RemoteFileCache remoteFileCache, String query) throws IOException {
+        URL url = URI.create("http://localhost:" + server.getAddress().getPort() + "/bucket/file.csv" + query).toURL();
+        try (InputStream is = remoteFileCache.openStream(url)) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
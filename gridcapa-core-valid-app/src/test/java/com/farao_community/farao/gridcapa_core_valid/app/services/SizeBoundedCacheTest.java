@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class SizeBoundedCacheTest {
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvictedAboveMaxSize() {
+        SizeBoundedCache<String, String> cache = new SizeBoundedCache<>(10);
+        cache.put("a", "valueA", 4);
+        cache.put("b", "valueB", 4);
+        cache.get("a");
+        cache.put("c", "valueC", 4);
+
+        assertEquals("valueA", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("valueC", cache.get("c"));
+        assertEquals(8, cache.getSize());
+    }
+
+    @Test
+    void entriesLargerThanMaxSizeAreNotCached() {
+        SizeBoundedCache<String, String> cache = new SizeBoundedCache<>(10);
+        cache.put("a", "valueA", 11);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void evictedAndReplacedValuesAreNotified() {
+        List<String> removedValues = new ArrayList<>();
+        SizeBoundedCache<String, String> cache = new SizeBoundedCache<>(10, removedValues::add);
+        cache.put("a", "valueA", 4);
+        cache.put("a", "newValueA", 4);
+        cache.put("b", "valueB", 4);
+        cache.put("c", "valueC", 4);
+
+        assertEquals(List.of("valueA", "newValueA"), removedValues);
+    }
+
+    @Test
+    void concurrentLoadsOfSameKeyAreDoneOnce() throws InterruptedException {
+        SizeBoundedCache<String, String> cache = new SizeBoundedCache<>(10);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch loadReleased = new CountDownLatch(1);
+        AtomicReference<String> firstValue = new AtomicReference<>();
+        AtomicReference<String> secondValue = new AtomicReference<>();
+
+        Thread first = Thread.ofPlatform().start(() -> firstValue.set(cache.getOrLoad("a", () -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            awaitQuietly(loadReleased);
+            return "valueA";
+        }, 4)));
+        assertTrue(loadStarted.await(30, TimeUnit.SECONDS));
+        Thread second = Thread.ofPlatform().start(() -> secondValue.set(cache.getOrLoad("a", () -> {
+            loads.incrementAndGet();
+            awaitQuietly(loadReleased);
+            return "otherValueA";
+        }, 4)));
+        while (second.getState() != Thread.State.WAITING) {
+            Thread.onSpinWait();
+        }
+        loadReleased.countDown();
+        first.join(30_000);
+        second.join(30_000);
+
+        assertEquals(1, loads.get());
+        assertEquals("valueA", firstValue.get());
+        assertEquals("valueA", secondValue.get());
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        SizeBoundedCache<String, String> cache = new SizeBoundedCache<>(10);
+
+        assertThrows(IllegalStateException.class, () -> cache.getOrLoad("a", () -> {
+            throw new IllegalStateException("load failure");
+        }, 4));
+
+        assertEquals("valueA", cache.getOrLoad("a", () -> "valueA", 4));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.services;
+
+import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPoint;
+import com.farao_community.farao.gridcapa_core_valid.app.study_point.StudyPointsImporter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class StudyPointsCacheTest {
+
+    @Test
+    void studyPointsFileIsParsedOnceForSameContent() throws IOException {
+        StudyPointsCache studyPointsCache = new StudyPointsCache(1);
+        byte[] studyPointsContent = getClass().getResourceAsStream("/study_point/20210723-Points_Etudes.csv").readAllBytes();
+        AtomicInteger imports = new AtomicInteger();
+
+        Map<Integer, List<StudyPoint>> first = studyPointsCache.getStudyPointsByPeriod(studyPointsContent, () -> importStudyPoints(studyPointsContent, imports));
+        Map<Integer, List<StudyPoint>> second = studyPointsCache.getStudyPointsByPeriod(studyPointsContent, () -> importStudyPoints(studyPointsContent, imports));
+
+        assertSame(first, second);
+        assertEquals(1, imports.get());
+        assertEquals(studyPointsContent.length, studyPointsCache.getSize());
+    }
+
+    private static Map<Integer, List<StudyPoint>> importStudyPoints(byte[] studyPointsContent, AtomicInteger imports) {
+        imports.incrementAndGet();
+        return StudyPointsImporter.importStudyPointsByPeriod(new ByteArrayInputStream(studyPointsContent));
+    }
+}
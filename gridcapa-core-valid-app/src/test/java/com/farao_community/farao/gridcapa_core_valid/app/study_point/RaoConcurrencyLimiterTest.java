@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.study_point;
+
+import com.farao_community.farao.rao_runner.api.resource.AbstractRaoResponse;
+import com.farao_community.farao.rao_runner.api.resource.RaoFailureResponse;
+import com.farao_community.farao.rao_runner.api.resource.RaoSuccessResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class RaoConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void raoRequestsAreQueuedAboveLimit() {
+        RaoConcurrencyLimiter limiter = new RaoConcurrencyLimiter(1, 60000, 0.5, meterRegistry);
+        CompletableFuture<AbstractRaoResponse> firstRao = new CompletableFuture<>();
+        CompletableFuture<AbstractRaoResponse> secondRao = new CompletableFuture<>();
+
+        assertSame(firstRao, limiter.submit(() -> firstRao));
+        CompletableFuture<AbstractRaoResponse> queuedRao = limiter.submit(() -> secondRao);
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1, limiter.getQueued());
+        assertEquals(1., meterRegistry.get("core.valid.rao.queued").gauge().value());
+
+        firstRao.complete(new RaoSuccessResponse.Builder().withId("first").build());
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+        assertFalse(queuedRao.isDone());
+
+        RaoSuccessResponse secondResponse = new RaoSuccessResponse.Builder().withId("second").build();
+        secondRao.complete(secondResponse);
+        assertSame(secondResponse, queuedRao.join());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void limitDecreasesOnFailureAndIncreasesBackOnSuccess() {
+        RaoConcurrencyLimiter limiter = new RaoConcurrencyLimiter(4, 60000, 0.5, meterRegistry);
+        assertEquals(4, limiter.getLimit());
+
+        CompletableFuture<AbstractRaoResponse> failedRao = new CompletableFuture<>();
+        limiter.submit(() -> failedRao);
+        failedRao.completeExceptionally(new TimeoutException());
+        assertEquals(2, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            limiter.submit(() -> CompletableFuture.completedFuture(new RaoSuccessResponse.Builder().withId("id").build()));
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void limitDecreasesOnRaoFailureResponse() {
+        RaoConcurrencyLimiter limiter = new RaoConcurrencyLimiter(4, 60000, 0.5, meterRegistry);
+
+        limiter.submit(() -> CompletableFuture.completedFuture(new RaoFailureResponse.Builder().withId("id").withErrorMessage("RAO failed").build()));
+
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void cancelledRaosReleaseSlotWithoutDecreasingLimit() {
+        RaoConcurrencyLimiter limiter = new RaoConcurrencyLimiter(1, 60000, 0.5, meterRegistry);
+        CompletableFuture<AbstractRaoResponse> firstRao = new CompletableFuture<>();
+        CompletableFuture<AbstractRaoResponse> dispatchedRao = limiter.submit(() -> firstRao);
+        CompletableFuture<AbstractRaoResponse> queuedRao = limiter.submit(CompletableFuture::new);
+
+        queuedRao.cancel(true);
+        dispatchedRao.cancel(true);
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void cancellingDispatchedQueuedRaoCancelsItAndReleasesSlot() {
+        RaoConcurrencyLimiter limiter = new RaoConcurrencyLimiter(1, 60000, 0.5, meterRegistry);
+        CompletableFuture<AbstractRaoResponse> firstRao = new CompletableFuture<>();
+        CompletableFuture<AbstractRaoResponse> secondRao = new CompletableFuture<>();
+        limiter.submit(() -> firstRao);
+        CompletableFuture<AbstractRaoResponse> queuedRao = limiter.submit(() -> secondRao);
+        firstRao.complete(new RaoSuccessResponse.Builder().withId("first").build());
+        assertEquals(1, limiter.getInFlight());
+
+        queuedRao.cancel(true);
+
+        assertTrue(secondRao.isCancelled());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void exceptionOfImmediateDispatchIsPropagatedAndSlotReleased() {
+        RaoConcurrencyLimiter limiter = new RaoConcurrencyLimiter(2, 60000, 0.5, meterRegistry);
+        assertThrows(IllegalStateException.class, () -> limiter.submit(() -> {
+            throw new IllegalStateException("RAO runner unavailable");
+        }));
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void exceptionOfQueuedDispatchCompletesFutureExceptionally() {
+        RaoConcurrencyLimiter limiter = new RaoConcurrencyLimiter(1, 60000, 1., meterRegistry);
+        CompletableFuture<AbstractRaoResponse> firstRao = new CompletableFuture<>();
+        limiter.submit(() -> firstRao);
+        CompletableFuture<AbstractRaoResponse> queuedRao = limiter.submit(() -> {
+            throw new IllegalStateException("RAO runner unavailable");
+        });
+        firstRao.complete(new RaoSuccessResponse.Builder().withId("first").build());
+        assertTrue(queuedRao.isCompletedExceptionally());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.study_point;
+
+import com.farao_community.farao.gridcapa_core_valid.api.resource.CoreValidRequest;
+import com.farao_community.farao.gridcapa_core_valid.app.services.ArtifactsJanitor;
+import com.farao_community.farao.gridcapa_core_valid.app.services.UrlValidationService;
+import com.farao_community.farao.minio_adapter.starter.MinioAdapter;
+import com.farao_community.farao.minio_adapter.starter.MinioAdapterProperties;
+import com.powsybl.openrao.data.crac.api.Crac;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class StudyPointCheckpointServiceTest {
+
+    private static final String CHECKPOINT_PATH = "artifacts/20210723_0030_checkpoints/requestId/runId/vertice1.json";
+
+    private final MinioAdapter minioAdapter = Mockito.mock(MinioAdapter.class);
+    private final UrlValidationService urlValidationService = Mockito.mock(UrlValidationService.class);
+    private final ArtifactsJanitor artifactsJanitor = Mockito.mock(ArtifactsJanitor.class);
+    private final CoreValidRequest coreValidRequest = new CoreValidRequest("requestId", "runId", OffsetDateTime.parse("2021-07-22T22:30Z"), null, null, null, null, null);
+
+    @Test
+    void checkSavedStudyPointIsRestoredWithNewUrls() throws IOException {
+        Mockito.when(minioAdapter.getProperties()).thenReturn(new MinioAdapterProperties("bucket", "basepath", "url", "accesskey", "secretkey"));
+        StudyPointCheckpointService checkpointService = new StudyPointCheckpointService(minioAdapter, urlValidationService, artifactsJanitor, true);
+        StudyPointResult computedResult = new StudyPointResult("vertice1");
+        computedResult.setStatus(StudyPointResult.Status.SUCCESS);
+        computedResult.setShiftedCgmUrl("http://minio:9000/bucket/basepath/artifacts/network_vertice1.xiidm?X-Amz-Expires=604800");
+        computedResult.setRaoResultFileUrl("http://minio:9000/bucket/basepath/artifacts/RAO-2021-07-23_00-30-vertice1/raoResult.json?X-Amz-Expires=604800");
+        computedResult.setPeriod("1");
+        Mockito.when(minioAdapter.generatePreSignedUrl("artifacts/network_vertice1.xiidm")).thenReturn("http://newShiftedCgmUrl");
+        Mockito.when(minioAdapter.generatePreSignedUrl("artifacts/RAO-2021-07-23_00-30-vertice1/raoResult.json")).thenReturn("http://newRaoResultUrl");
+
+        checkpointService.save(coreValidRequest, computedResult);
+
+        ArgumentCaptor<InputStream> checkpointCaptor = ArgumentCaptor.forClass(InputStream.class);
+        Mockito.verify(minioAdapter).uploadArtifact(Mockito.eq(CHECKPOINT_PATH), checkpointCaptor.capture());
+        Mockito.when(minioAdapter.fileExists(CHECKPOINT_PATH)).thenReturn(true);
+        Mockito.when(minioAdapter.generatePreSignedUrl(CHECKPOINT_PATH)).thenReturn("http://checkpoint");
+        Mockito.when(urlValidationService.openUrlStream("http://checkpoint")).thenReturn(new ByteArrayInputStream(checkpointCaptor.getValue().readAllBytes()));
+
+        StudyPoint studyPoint = new StudyPoint(1, "vertice1", Map.of());
+        assertTrue(checkpointService.restore(coreValidRequest, studyPoint, Mockito.mock(Crac.class)));
+        StudyPointResult restoredResult = studyPoint.getStudyPointResult();
+        assertEquals(StudyPointResult.Status.SUCCESS, restoredResult.getStatus());
+        // Stored URLs may have expired since the checkpoint was saved
+        assertEquals("http://newShiftedCgmUrl", restoredResult.getShiftedCgmUrl());
+        assertEquals("http://newRaoResultUrl", restoredResult.getRaoResultFileUrl());
+        assertNull(restoredResult.getNetworkWithPraUrl());
+        assertEquals("1", restoredResult.getPeriod());
+        assertTrue(restoredResult.getListLimitingBranchResult().isEmpty());
+    }
+
+    @Test
+    void checkStudyPointWithoutCheckpointIsNotRestored() {
+        StudyPointCheckpointService checkpointService = new StudyPointCheckpointService(minioAdapter, urlValidationService, artifactsJanitor, true);
+        StudyPoint studyPoint = new StudyPoint(1, "vertice1", Map.of());
+
+        assertFalse(checkpointService.restore(coreValidRequest, studyPoint, Mockito.mock(Crac.class)));
+        assertEquals(StudyPointResult.Status.NOT_STARTED, studyPoint.getStudyPointResult().getStatus());
+    }
+
+    @Test
+    void checkFailedStudyPointIsNotSaved() {
+        StudyPointCheckpointService checkpointService = new StudyPointCheckpointService(minioAdapter, urlValidationService, artifactsJanitor, true);
+        StudyPointResult failedResult = new StudyPointResult("vertice1");
+        failedResult.setStatusToError();
+
+        checkpointService.save(coreValidRequest, failedResult);
+
+        Mockito.verify(minioAdapter, Mockito.never()).uploadArtifact(Mockito.anyString(), Mockito.any());
+    }
+
+    @Test
+    void checkpointsOfManualRunAreRegisteredAndCleanedUp() {
+        StudyPointCheckpointService checkpointService = new StudyPointCheckpointService(minioAdapter, urlValidationService, artifactsJanitor, true);
+
+        checkpointService.registerCleanup(coreValidRequest);
+        checkpointService.cleanUp(coreValidRequest);
+
+        Mockito.verify(artifactsJanitor).registerCleanup("20210723_0030_checkpoints/requestId/runId");
+        Mockito.verify(artifactsJanitor).cleanUp("20210723_0030_checkpoints/requestId/runId");
+    }
+
+    @Test
+    void checkpointsOfAutomaticRunAreLeftToArtifactsCleanup() {
+        StudyPointCheckpointService checkpointService = new StudyPointCheckpointService(minioAdapter, urlValidationService, artifactsJanitor, true);
+        CoreValidRequest automaticRequest = new CoreValidRequest("requestId", "runId", OffsetDateTime.parse("2021-07-22T22:30Z"), null, null, null, null, null, true);
+
+        checkpointService.registerCleanup(automaticRequest);
+        checkpointService.cleanUp(automaticRequest);
+
+        Mockito.verifyNoInteractions(artifactsJanitor);
+    }
+}
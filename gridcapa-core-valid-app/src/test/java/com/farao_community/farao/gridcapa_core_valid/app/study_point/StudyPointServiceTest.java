@@ -6,35 +6,64 @@
  */
 package com.farao_community.farao.gridcapa_core_valid.app.study_point;
 
+import com.farao_community.farao.gridcapa_core_valid.api.exception.CoreValidInternalException;
 import com.farao_community.farao.gridcapa_core_valid.app.limiting_branch.LimitingBranchResultService;
+import com.farao_community.farao.gridcapa_core_valid.app.services.NetworkHandler;
 import com.farao_community.farao.minio_adapter.starter.MinioAdapter;
 import com.farao_community.farao.minio_adapter.starter.MinioAdapterProperties;
 import com.farao_community.farao.rao_runner.api.resource.AbstractRaoResponse;
 import com.farao_community.farao.rao_runner.api.resource.RaoRequest;
 import com.farao_community.farao.rao_runner.api.resource.RaoSuccessResponse;
 import com.farao_community.farao.rao_runner.starter.AsynchronousRaoRunnerClient;
+import com.powsybl.commons.datasource.MemDataSource;
 import com.powsybl.glsk.api.GlskDocument;
 import com.powsybl.glsk.api.io.GlskDocumentImporters;
 import com.powsybl.glsk.commons.ZonalData;
 import com.powsybl.iidm.modification.scalable.Scalable;
 import com.powsybl.iidm.network.Network;
+import com.powsybl.iidm.serde.NetworkSerDe;
+import com.powsybl.openrao.data.crac.api.Crac;
+import com.powsybl.openrao.data.crac.api.State;
+import com.powsybl.openrao.data.crac.api.networkaction.NetworkAction;
+import com.powsybl.openrao.data.crac.api.rangeaction.RangeAction;
+import com.powsybl.openrao.data.crac.io.fbconstraint.FbConstraintCreationContext;
+import com.powsybl.openrao.data.raoresult.api.RaoResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.env.YamlPropertySourceLoader;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.when;
 
@@ -54,6 +83,9 @@ class StudyPointServiceTest {
     @MockitoBean
     private AsynchronousRaoRunnerClient asynchronousRaoRunnerClient;
 
+    @MockitoBean
+    private StreamBridge streamBridge;
+
     @Autowired
     StudyPointService studyPointService;
 
@@ -81,6 +113,9 @@ class StudyPointServiceTest {
     void checkStudyPointComputationSucceed() {
         when(minioAdapter.getProperties()).thenReturn(new MinioAdapterProperties("bucket", "basepath", "url", "accesskey", "secretkey"));
         Mockito.when(minioAdapter.generatePreSignedUrl(Mockito.any())).thenReturn("http://url");
+        // Shifted network is serialized while uploaded, so the upload has to read it
+        Mockito.doAnswer(invocation -> invocation.getArgument(1, InputStream.class).readAllBytes())
+                .when(minioAdapter).uploadArtifact(Mockito.anyString(), Mockito.any(InputStream.class));
         CompletableFuture<AbstractRaoResponse> future = new CompletableFuture<>();
         Mockito.when(asynchronousRaoRunnerClient.runRaoAsynchronously(Mockito.any())).thenReturn(future);
         Mockito.when(limitingBranchResult.importRaoResult(Mockito.any(), Mockito.any(), Mockito.anyString())).thenReturn(null);
@@ -106,6 +141,59 @@ class StudyPointServiceTest {
         assertEquals("raoUrl", result.getRaoResultFileUrl());
     }
 
+    @Test
+    void shiftedCgmsAreTheSameWhateverTheNumberOfWorkers() throws Exception {
+        when(minioAdapter.getProperties()).thenReturn(new MinioAdapterProperties("bucket", "basepath", "url", "accesskey", "secretkey"));
+        Mockito.when(minioAdapter.generatePreSignedUrl(Mockito.any())).thenReturn("http://url");
+        List<StudyPoint> allStudyPoints = StudyPointsImporter.importStudyPoints(getClass().getResourceAsStream("/20210723/20210723-Points_Etudes-v01.csv"));
+
+        Map<String, Map<String, Double>> sequentialCgms = shiftAndGetUploadedCgms(allStudyPoints, 1);
+        Map<String, Map<String, Double>> parallelCgms = shiftAndGetUploadedCgms(allStudyPoints, allStudyPoints.size());
+
+        assertEquals(allStudyPoints.size(), sequentialCgms.size());
+        assertEquals(sequentialCgms, parallelCgms);
+    }
+
+    /**
+     * @return injections and active power limits of the uploaded shifted CGMs, by path
+     */
+    private Map<String, Map<String, Double>> shiftAndGetUploadedCgms(List<StudyPoint> studyPointsToShift, int maxWorkers) throws Exception {
+        Map<String, Map<String, Double>> uploadedCgms = new ConcurrentHashMap<>();
+        Mockito.doAnswer(invocation -> uploadedCgms.put(invocation.getArgument(0, String.class), getInjectionsAndLimits(NetworkSerDe.read(invocation.getArgument(1, InputStream.class)))))
+                .when(minioAdapter).uploadArtifact(Mockito.anyString(), Mockito.any(InputStream.class));
+        OffsetDateTime dateTime = OffsetDateTime.parse("2021-07-22T22:30Z");
+        GlskDocument glskDocument = GlskDocumentImporters.importGlsk(Objects.requireNonNull(getClass().getResourceAsStream("/20210723/20210723-F226-v1.xml")));
+        // Imported as in production, with the Alegro virtual generators
+        Network coreNetwork = NetworkHandler.loadNetwork("20210723_0030_2D5_CGM.uct", getClass().getResourceAsStream("/20210723/20210723_0030_2D5_CGM.uct"));
+        StudyPointData studyPointData = new StudyPointData(coreNetwork, coreNetPositions, glskDocument.getZonalScalable(coreNetwork, dateTime.toInstant()), null, "", "");
+        StudyPointShiftWorkers shiftWorkers = new StudyPointShiftWorkers(studyPointData, maxWorkers, otherNetwork -> glskDocument.getZonalScalable(otherNetwork, dateTime.toInstant()));
+        ExecutorService executor = Executors.newFixedThreadPool(maxWorkers);
+        try {
+            List<Future<RaoRequest>> shifts = new ArrayList<>();
+            for (StudyPoint studyPoint : studyPointsToShift) {
+                shifts.add(executor.submit(() -> shiftWorkers.runWithWorker(worker -> studyPointService.computeStudyPointShift(studyPoint, worker, dateTime, "id", "runId"))));
+            }
+            for (Future<RaoRequest> shift : shifts) {
+                assertNotNull(shift.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return uploadedCgms;
+    }
+
+    private static Map<String, Double> getInjectionsAndLimits(Network uploadedNetwork) {
+        Map<String, Double> injectionsAndLimits = new HashMap<>();
+        uploadedNetwork.getGeneratorStream().forEach(generator -> {
+            injectionsAndLimits.put(generator.getId() + "_targetP", generator.getTargetP());
+            injectionsAndLimits.put(generator.getId() + "_minP", generator.getMinP());
+            injectionsAndLimits.put(generator.getId() + "_maxP", generator.getMaxP());
+        });
+        uploadedNetwork.getLoadStream().forEach(load -> injectionsAndLimits.put(load.getId() + "_p0", load.getP0()));
+        uploadedNetwork.getBoundaryLineStream().forEach(boundaryLine -> injectionsAndLimits.put(boundaryLine.getId() + "_p0", boundaryLine.getP0()));
+        return injectionsAndLimits;
+    }
+
     @Test
     void checkStudyPointComputationFailed() {
         when(minioAdapter.getProperties()).thenReturn(new MinioAdapterProperties("bucket", "basepath", "url", "accesskey", "secretkey"));
@@ -132,4 +220,84 @@ class StudyPointServiceTest {
             assertEquals("Error during RAO verticeId: " + exceptionMessage, e.getMessage());
         }
     }
+
+    @Test
+    void stopOfRaosIsSentToRaoRunnersStopExchange() throws IOException {
+        studyPointService.stopStudyPointRaos("runId");
+
+        Mockito.verify(streamBridge).send("stop-rao-out-0", "runId");
+        // Test configuration overrides the main one, which is the deployed one
+        List<PropertySource<?>> mainConfiguration = new YamlPropertySourceLoader().load("main", new FileSystemResource("src/main/resources/application.yml"));
+        assertEquals("stop-rao-runner", mainConfiguration.get(0).getProperty("spring.cloud.stream.bindings.stop-rao-out-0.destination"));
+    }
+
+    @Test
+    void shiftedCgmWithPraIsTheShiftedCgmSentToTheRaoWithPreventiveRemedialActions() throws Exception {
+        when(minioAdapter.getProperties()).thenReturn(new MinioAdapterProperties("bucket", "basepath", "url", "accesskey", "secretkey"));
+        Mockito.when(minioAdapter.generatePreSignedUrl(Mockito.any())).thenReturn("http://url");
+        Map<String, byte[]> uploadedFiles = new ConcurrentHashMap<>();
+        Mockito.doAnswer(invocation -> uploadedFiles.put(invocation.getArgument(0, String.class), invocation.getArgument(1, InputStream.class).readAllBytes()))
+                .when(minioAdapter).uploadArtifact(Mockito.anyString(), Mockito.any(InputStream.class));
+        NetworkAction topologicalAction = Mockito.mock(NetworkAction.class);
+        Mockito.doAnswer(invocation -> invocation.getArgument(0, Network.class).getLine("FFR2AA1  DDE3AA1  1").disconnect())
+                .when(topologicalAction).apply(Mockito.any(Network.class));
+        RangeAction<?> injectionRangeAction = Mockito.mock(RangeAction.class);
+        Mockito.doAnswer(invocation -> invocation.getArgument(0, Network.class).getGenerator("FFR1AA1 _generator").setTargetP(invocation.getArgument(1, Double.class)))
+                .when(injectionRangeAction).apply(Mockito.any(Network.class), Mockito.anyDouble());
+        FbConstraintCreationContext cracCreationContext = Mockito.mock(FbConstraintCreationContext.class);
+        Crac crac = Mockito.mock(Crac.class);
+        State preventiveState = Mockito.mock(State.class);
+        Mockito.when(cracCreationContext.getCrac()).thenReturn(crac);
+        Mockito.when(crac.getPreventiveState()).thenReturn(preventiveState);
+        RaoResult raoResult = Mockito.mock(RaoResult.class);
+        Mockito.when(raoResult.getActivatedNetworkActionsDuringState(preventiveState)).thenReturn(Set.of(topologicalAction));
+        Mockito.when(raoResult.getActivatedRangeActionsDuringState(preventiveState)).thenReturn(Set.of(injectionRangeAction));
+        Mockito.when(raoResult.getOptimizedSetPointOnState(preventiveState, injectionRangeAction)).thenReturn(100.);
+        StudyPointData studyPointData = new StudyPointData(network, coreNetPositions, scalableZonalData, cracCreationContext, "", "");
+        StudyPoint studyPoint = studyPoints.get(0);
+        OffsetDateTime dateTime = OffsetDateTime.parse("2021-07-22T22:30Z");
+
+        ReflectionTestUtils.setField(studyPointService, "keepShiftedVariants", true);
+        try {
+            studyPointService.computeStudyPointShift(studyPoint, studyPointData, dateTime, "id", "runId");
+            // Another study point shifted by the same worker before the RAO of the first one is done
+            studyPointService.computeStudyPointShift(studyPoints.get(1), studyPointData, dateTime, "id", "runId");
+            assertTrue(StudyPointService.hasShiftedVariant(network, studyPoint));
+            studyPointService.saveShiftedCgmWithPra(studyPoint, studyPointData, raoResult);
+        } finally {
+            ReflectionTestUtils.setField(studyPointService, "keepShiftedVariants", false);
+        }
+
+        // Network with PRA the RAO runner would have built from the shifted CGM sent to it
+        Network raoNetwork = NetworkSerDe.read(new ByteArrayInputStream(getUploadedFile(uploadedFiles, "_0_9.xiidm")));
+        topologicalAction.apply(raoNetwork);
+        injectionRangeAction.apply(raoNetwork, 100.);
+        MemDataSource raoNetworkDataSource = new MemDataSource();
+        raoNetwork.write("UCTE", new Properties(), raoNetworkDataSource);
+        Network expectedNetworkWithPra = Network.read("expected_withPra.uct", raoNetworkDataSource.newInputStream("", "uct"));
+        Network networkWithPra = Network.read("withPra.uct", new ByteArrayInputStream(getUploadedFile(uploadedFiles, "_0_9_withPra.uct")));
+        assertEquals(100., networkWithPra.getGenerator("FFR1AA1 _generator").getTargetP(), 1e-3);
+        assertFalse(networkWithPra.getLine("FFR2AA1  DDE3AA1  1").getTerminal1().isConnected());
+        assertEquals(getInjectionsAndLimits(expectedNetworkWithPra), getInjectionsAndLimits(networkWithPra));
+        assertFalse(StudyPointService.hasShiftedVariant(network, studyPoint));
+        assertTrue(StudyPointService.hasShiftedVariant(network, studyPoints.get(1)));
+    }
+
+    @Test
+    void shiftedCgmWithPraFailsWhenShiftedCgmSentToTheRaoIsNotKept() {
+        StudyPointData studyPointData = new StudyPointData(network, coreNetPositions, scalableZonalData, null, "", "");
+        StudyPoint studyPoint = studyPoints.get(0);
+        RaoResult raoResult = Mockito.mock(RaoResult.class);
+
+        assertThrows(CoreValidInternalException.class, () -> studyPointService.saveShiftedCgmWithPra(studyPoint, studyPointData, raoResult));
+        Mockito.verify(minioAdapter, Mockito.never()).uploadArtifact(Mockito.anyString(), Mockito.any(InputStream.class));
+    }
+
+    private static byte[] getUploadedFile(Map<String, byte[]> uploadedFiles, String pathSuffix) {
+        return uploadedFiles.entrySet().stream()
+                .filter(entry -> entry.getKey().endsWith(pathSuffix))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseThrow();
+    }
 }
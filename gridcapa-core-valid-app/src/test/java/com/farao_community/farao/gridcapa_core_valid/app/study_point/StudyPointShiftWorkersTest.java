@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2024, RTE (http://www.rte-france.com)
+ *  This Source Code Form is subject to the terms of the Mozilla Public
+ *  License, v. 2.0. If a copy of the MPL was not distributed with this
+ *  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package com.farao_community.farao.gridcapa_core_valid.app.study_point;
+
+import com.farao_community.farao.gridcapa_core_valid.app.services.NetPositionsHandler;
+import com.farao_community.farao.gridcapa_core_valid.app.services.NetworkHandler;
+import com.powsybl.glsk.api.GlskDocument;
+import com.powsybl.glsk.api.io.GlskDocumentImporters;
+import com.powsybl.iidm.network.Generator;
+import com.powsybl.iidm.network.Network;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author Oualid Aloui {@literal <oualid.aloui at rte-france.com>}
+ */
+class StudyPointShiftWorkersTest {
+
+    private Network network;
+    private StudyPointData studyPointData;
+
+    @BeforeEach
+    void setUp() {
+        network = Network.read("20210723_0030_2D5_CGM.uct", getClass().getResourceAsStream("/20210723/20210723_0030_2D5_CGM.uct"));
+        studyPointData = new StudyPointData(network, Map.of(), null, null, "cracUrl", "raoParametersUrl");
+    }
+
+    @Test
+    void singleWorkerUsesOriginalNetwork() throws InterruptedException {
+        StudyPointShiftWorkers shiftWorkers = new StudyPointShiftWorkers(studyPointData, 1, otherNetwork -> null);
+        assertSame(network, shiftWorkers.runWithWorker(StudyPointData::getNetwork));
+        assertSame(network, shiftWorkers.runWithWorker(StudyPointData::getNetwork));
+    }
+
+    @Test
+    void concurrentWorkersOwnDistinctNetworkCopies() throws Exception {
+        StudyPointShiftWorkers shiftWorkers = new StudyPointShiftWorkers(studyPointData, 2, otherNetwork -> null);
+        CountDownLatch bothWorkersAcquired = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<StudyPointData> first = executor.submit(() -> shiftWorkers.runWithWorker(worker -> awaitAndGet(bothWorkersAcquired, worker)));
+            Future<StudyPointData> second = executor.submit(() -> shiftWorkers.runWithWorker(worker -> awaitAndGet(bothWorkersAcquired, worker)));
+            StudyPointData firstWorker = first.get(30, TimeUnit.SECONDS);
+            StudyPointData secondWorker = second.get(30, TimeUnit.SECONDS);
+
+            assertNotSame(firstWorker.getNetwork(), secondWorker.getNetwork());
+            assertEquals(network.getGeneratorCount(), firstWorker.getNetwork().getGeneratorCount());
+            assertEquals(network.getGeneratorCount(), secondWorker.getNetwork().getGeneratorCount());
+            assertEquals("cracUrl", firstWorker.getJsonCracUrl());
+            assertEquals("cracUrl", secondWorker.getJsonCracUrl());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void alegroVirtualGeneratorsAreRemovedFromEveryWorkerOnceScalablesAreBuilt() throws Exception {
+        Network coreNetwork = NetworkHandler.loadNetwork("20210723_0030_2D5_CGM.uct", getClass().getResourceAsStream("/20210723/20210723_0030_2D5_CGM.uct"));
+        assertNotNull(coreNetwork.getGenerator("XLI_OB1B_generator"));
+        List<Network> scalableNetworks = new CopyOnWriteArrayList<>();
+        StudyPointShiftWorkers shiftWorkers = new StudyPointShiftWorkers(new StudyPointData(coreNetwork, Map.of(), null, null, "cracUrl", "raoParametersUrl"), 2, otherNetwork -> {
+            // Scalables of the copies are built while the virtual generators are still there
+            assertNotNull(otherNetwork.getGenerator("XLI_OB1B_generator"));
+            scalableNetworks.add(otherNetwork);
+            return null;
+        });
+        CountDownLatch bothWorkersAcquired = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<StudyPointData> first = executor.submit(() -> shiftWorkers.runWithWorker(worker -> awaitAndGet(bothWorkersAcquired, worker)));
+            Future<StudyPointData> second = executor.submit(() -> shiftWorkers.runWithWorker(worker -> awaitAndGet(bothWorkersAcquired, worker)));
+            for (StudyPointData worker : List.of(first.get(30, TimeUnit.SECONDS), second.get(30, TimeUnit.SECONDS))) {
+                assertNull(worker.getNetwork().getGenerator("XLI_OB1B_generator"));
+                assertNull(worker.getNetwork().getGenerator("XLI_OB1A_generator"));
+            }
+            assertEquals(1, scalableNetworks.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void parallelShiftsGiveSameResultsAsSequentialShifts() throws Exception {
+        OffsetDateTime dateTime = OffsetDateTime.parse("2021-07-22T22:30Z");
+        GlskDocument glskDocument = GlskDocumentImporters.importGlsk(Objects.requireNonNull(getClass().getResourceAsStream("/20210723/20210723-F226-v1.xml")));
+        Map<String, Double> coreNetPositions = Map.of("FR", -50., "DE", -450., "NL", 225., "BE", 275.);
+        StudyPointData shiftData = new StudyPointData(network, coreNetPositions, glskDocument.getZonalScalable(network, dateTime.toInstant()), null, "cracUrl", "raoParametersUrl");
+        List<StudyPoint> studyPoints = StudyPointsImporter.importStudyPoints(getClass().getResourceAsStream("/20210723/20210723-Points_Etudes-v01.csv"));
+
+        StudyPointShiftWorkers sequentialWorkers = new StudyPointShiftWorkers(shiftData, 1, otherNetwork -> glskDocument.getZonalScalable(otherNetwork, dateTime.toInstant()));
+        List<Map<String, Double>> sequentialResults = new ArrayList<>();
+        for (StudyPoint studyPoint : studyPoints) {
+            sequentialResults.add(sequentialWorkers.runWithWorker(worker -> shiftAndGetTargetPs(worker, studyPoint)));
+        }
+
+        StudyPointShiftWorkers parallelWorkers = new StudyPointShiftWorkers(shiftData, 2, otherNetwork -> glskDocument.getZonalScalable(otherNetwork, dateTime.toInstant()));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Map<String, Double>>> parallelResults = new ArrayList<>();
+            for (StudyPoint studyPoint : studyPoints) {
+                parallelResults.add(executor.submit(() -> parallelWorkers.runWithWorker(worker -> shiftAndGetTargetPs(worker, studyPoint))));
+            }
+            for (int i = 0; i < studyPoints.size(); i++) {
+                assertEquals(sequentialResults.get(i), parallelResults.get(i).get(30, TimeUnit.SECONDS), "Study point " + studyPoints.get(i).getVerticeId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Map<String, Double> shiftAndGetTargetPs(StudyPointData worker, StudyPoint studyPoint) {
+        Network workerNetwork = worker.getNetwork();
+        String initialVariant = workerNetwork.getVariantManager().getWorkingVariantId();
+        String newVariant = initialVariant + "_" + studyPoint.getVerticeId();
+        workerNetwork.getVariantManager().cloneVariant(initialVariant, newVariant);
+        workerNetwork.getVariantManager().setWorkingVariant(newVariant);
+        try {
+            NetPositionsHandler.shiftNetPositionToStudyPoint(workerNetwork, studyPoint, worker.getScalableZonalData(), worker.getCoreNetPositions());
+            return workerNetwork.getGeneratorStream().collect(Collectors.toMap(Generator::getId, Generator::getTargetP));
+        } finally {
+            workerNetwork.getVariantManager().setWorkingVariant(initialVariant);
+            workerNetwork.getVariantManager().removeVariant(newVariant);
+        }
+    }
+
+    private static StudyPointData awaitAndGet(CountDownLatch latch, StudyPointData worker) {
+        latch.countDown();
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return worker;
+    }
+}
@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -59,4 +60,14 @@ class StudyPointsImporterTest {
         studyPointList = StudyPointsImporter.importStudyPoints(inputStream, dateTime);
         assertEquals(0, studyPointList.size());
     }
+
+    @Test
+    void importStudyPointsByPeriodTest() throws IOException {
+        InputStream inputStream = getClass().getResource(testDirectory + "/20210723-Points_Etudes.csv").openStream();
+        Map<Integer, List<StudyPoint>> studyPointsByPeriod = StudyPointsImporter.importStudyPointsByPeriod(inputStream);
+        assertEquals(2, studyPointsByPeriod.size());
+        assertEquals(3, studyPointsByPeriod.get(0).size());
+        assertEquals("0_1", studyPointsByPeriod.get(0).get(0).getVerticeId());
+        assertEquals("1_1", studyPointsByPeriod.get(1).get(0).getVerticeId());
+    }
 }